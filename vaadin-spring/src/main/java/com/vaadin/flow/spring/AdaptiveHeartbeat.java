@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Computes the heartbeat interval given to new clients from the load of the
+ * node.
+ * <p>
+ * The load is the greater of the system load average per processor and the
+ * number of requests in progress in the Vaadin servlet relative to the number
+ * considered as full load. The interval stays at the configured heartbeat
+ * interval up to half load and grows linearly to the maximum interval at full
+ * load. It's recomputed at most once per second.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class AdaptiveHeartbeat {
+
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.SECONDS
+            .toNanos(1);
+
+    private final int baseInterval;
+
+    private final int maxInterval;
+
+    private final int concurrency;
+
+    private final DoubleSupplier cpuLoad;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int interval;
+
+    private volatile long nextUpdate;
+
+    /**
+     * Creates a new instance using the system load average.
+     *
+     * @param baseInterval
+     *            the heartbeat interval in seconds under normal load
+     * @param maxInterval
+     *            the heartbeat interval in seconds under full load
+     * @param concurrency
+     *            the number of requests in progress considered as full load
+     */
+    AdaptiveHeartbeat(int baseInterval, int maxInterval, int concurrency) {
+        this(baseInterval, maxInterval, concurrency,
+                AdaptiveHeartbeat::getSystemLoad);
+    }
+
+    AdaptiveHeartbeat(int baseInterval, int maxInterval, int concurrency,
+            DoubleSupplier cpuLoad) {
+        this.baseInterval = baseInterval;
+        // A disabled heartbeat stays disabled under load
+        this.maxInterval = baseInterval <= 0 ? baseInterval
+                : Math.max(baseInterval, maxInterval);
+        this.concurrency = Math.max(1, concurrency);
+        this.cpuLoad = cpuLoad;
+        interval = baseInterval;
+        nextUpdate = System.nanoTime();
+    }
+
+    /**
+     * Notifies that the servlet has started handling a request.
+     */
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Notifies that the servlet has finished handling a request.
+     */
+    void requestEnded() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Gets the heartbeat interval for new clients.
+     *
+     * @return the heartbeat interval in seconds
+     */
+    int getInterval() {
+        long now = System.nanoTime();
+        if (now - nextUpdate >= 0) {
+            nextUpdate = now + UPDATE_INTERVAL_NANOS;
+            interval = computeInterval(getLoad());
+        }
+        return interval;
+    }
+
+    /**
+     * Gets the longest heartbeat interval given to clients.
+     *
+     * @return the maximum heartbeat interval in seconds
+     */
+    int getMaxInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * Gets the current load of the node.
+     *
+     * @return the load, {@code 1} being full load
+     */
+    double getLoad() {
+        return Math.max(cpuLoad.getAsDouble(),
+                (double) inFlight.get() / concurrency);
+    }
+
+    int computeInterval(double load) {
+        double factor = Math.min(1, Math.max(0, (load - 0.5) / 0.5));
+        return baseInterval
+                + (int) Math.round((maxInterval - baseInterval) * factor);
+    }
+
+    private static double getSystemLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        double average = os.getSystemLoadAverage();
+        return average < 0 ? 0 : average / os.getAvailableProcessors();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Properties;
+
+import com.vaadin.flow.server.DefaultDeploymentConfiguration;
+
+/**
+ * Deployment configuration whose heartbeat interval, sent to the clients in
+ * the bootstrap page, follows the load of the node.
+ *
+ * @author Vaadin Ltd
+ *
+ * @see AdaptiveHeartbeat
+ */
+class AdaptiveHeartbeatDeploymentConfiguration
+        extends DefaultDeploymentConfiguration {
+
+    private final transient AdaptiveHeartbeat adaptiveHeartbeat;
+
+    /**
+     * Creates a new configuration.
+     *
+     * @param systemPropertyBaseClass
+     *            the class to look for properties defined with annotations
+     * @param initParameters
+     *            the init parameters that should make up the foundation for
+     *            this configuration
+     */
+    AdaptiveHeartbeatDeploymentConfiguration(Class<?> systemPropertyBaseClass,
+            Properties initParameters) {
+        super(systemPropertyBaseClass, initParameters);
+        int interval = super.getHeartbeatInterval();
+        adaptiveHeartbeat = new AdaptiveHeartbeat(interval,
+                getApplicationOrSystemProperty(
+                        SpringConstants.ADAPTIVE_HEARTBEAT_MAX_INTERVAL,
+                        interval * 4, Integer::parseInt),
+                getApplicationOrSystemProperty(
+                        SpringConstants.ADAPTIVE_HEARTBEAT_CONCURRENCY,
+                        SpringConstants.DEFAULT_ADAPTIVE_HEARTBEAT_CONCURRENCY,
+                        Integer::parseInt));
+    }
+
+    @Override
+    public int getHeartbeatInterval() {
+        return adaptiveHeartbeat.getInterval();
+    }
+
+    /**
+     * Gets the adaptive heartbeat of this configuration.
+     *
+     * @return the adaptive heartbeat
+     */
+    AdaptiveHeartbeat getAdaptiveHeartbeat() {
+        return adaptiveHeartbeat;
+    }
+}
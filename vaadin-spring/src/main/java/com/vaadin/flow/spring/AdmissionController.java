@@ -0,0 +1,246 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests of each {@link VaadinRequestType} handled
+ * concurrently by the Vaadin servlet.
+ * <p>
+ * Each limited type has its own budget, so that for example heartbeats and
+ * static resources are never starved by UIDL requests waiting for session
+ * locks. A request beyond the limit waits in a bounded queue for a limited
+ * time and is shed if the queue is full or the time runs out, so that
+ * overload results in fast rejections instead of all the container threads
+ * being blocked. Types without a limit are always admitted.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class AdmissionController {
+
+    private final Map<VaadinRequestType, Budget> budgets;
+
+    private final long queueTimeoutNanos;
+
+    /**
+     * Concurrency budget of a request type.
+     */
+    static final class Budget {
+
+        private final int limit;
+
+        private final int queueSize;
+
+        private final Semaphore permits;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private final LongAdder admitted = new LongAdder();
+
+        private final LongAdder queued = new LongAdder();
+
+        private final LongAdder shed = new LongAdder();
+
+        private Budget(int limit, int queueSize) {
+            this.limit = limit;
+            this.queueSize = queueSize;
+            permits = new Semaphore(limit, true);
+        }
+
+        /**
+         * Gets the number of requests being handled.
+         *
+         * @return the number of active requests
+         */
+        int getActiveCount() {
+            return limit - permits.availablePermits();
+        }
+
+        /**
+         * Gets the number of requests waiting in the queue.
+         *
+         * @return the number of waiting requests
+         */
+        int getWaitingCount() {
+            return waiting.get();
+        }
+
+        /**
+         * Gets the number of admitted requests, including the ones which
+         * waited in the queue.
+         *
+         * @return the number of admitted requests
+         */
+        long getAdmittedCount() {
+            return admitted.sum();
+        }
+
+        /**
+         * Gets the number of requests which had to wait in the queue.
+         *
+         * @return the number of queued requests
+         */
+        long getQueuedCount() {
+            return queued.sum();
+        }
+
+        /**
+         * Gets the number of rejected requests.
+         *
+         * @return the number of shed requests
+         */
+        long getShedCount() {
+            return shed.sum();
+        }
+    }
+
+    /**
+     * Creates a new controller.
+     *
+     * @param limits
+     *            the concurrency limits by request type, types not included
+     *            are not limited
+     * @param queueSize
+     *            the maximum number of requests of a type waiting for
+     *            admission
+     * @param queueTimeoutMillis
+     *            the maximum time in milliseconds a request waits for
+     *            admission
+     */
+    AdmissionController(Map<VaadinRequestType, Integer> limits, int queueSize,
+            long queueTimeoutMillis) {
+        budgets = new EnumMap<>(VaadinRequestType.class);
+        limits.forEach((type, limit) -> budgets.put(type,
+                new Budget(limit, queueSize)));
+        queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+    }
+
+    /**
+     * Parses concurrency limits given as comma separated
+     * {@code <type tag>=<limit>} pairs, e.g.
+     * {@code uidl=32,heartbeat=8,static-resource=64}.
+     *
+     * @param value
+     *            the limits to parse
+     * @return the limits by request type
+     * @throws IllegalArgumentException
+     *             if the value is malformed
+     */
+    static Map<VaadinRequestType, Integer> parseLimits(String value) {
+        Map<VaadinRequestType, Integer> limits = new EnumMap<>(
+                VaadinRequestType.class);
+        for (String pair : value.split(",")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            int index = pair.indexOf('=');
+            if (index < 0) {
+                throw new IllegalArgumentException(
+                        "Expected <type>=<limit> instead of '" + pair + "'");
+            }
+            VaadinRequestType type = getType(pair.substring(0, index).trim());
+            int limit = Integer.parseInt(pair.substring(index + 1).trim());
+            if (limit <= 0) {
+                throw new IllegalArgumentException(
+                        "The limit of '" + type.getTag() + "' must be positive");
+            }
+            limits.put(type, limit);
+        }
+        return limits;
+    }
+
+    private static VaadinRequestType getType(String tag) {
+        for (VaadinRequestType type : VaadinRequestType.values()) {
+            if (type.getTag().equals(tag)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown request type '" + tag
+                + "', expected one of the request type metrics tags");
+    }
+
+    /**
+     * Admits a request of the given type, waiting in the queue if the type is
+     * at its limit. An admitted request must be {@link #release(VaadinRequestType)
+     * released} once it's handled.
+     *
+     * @param type
+     *            the request type
+     * @return {@code true} if the request is admitted, {@code false} if it's
+     *         shed
+     */
+    boolean admit(VaadinRequestType type) {
+        Budget budget = budgets.get(type);
+        if (budget == null) {
+            return true;
+        }
+        if (budget.permits.tryAcquire()) {
+            budget.admitted.increment();
+            return true;
+        }
+        if (budget.waiting.incrementAndGet() > budget.queueSize) {
+            budget.waiting.decrementAndGet();
+            budget.shed.increment();
+            return false;
+        }
+        budget.queued.increment();
+        boolean acquired = false;
+        try {
+            acquired = budget.permits.tryAcquire(queueTimeoutNanos,
+                    TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            budget.waiting.decrementAndGet();
+        }
+        if (acquired) {
+            budget.admitted.increment();
+        } else {
+            budget.shed.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * Releases an admitted request of the given type.
+     *
+     * @param type
+     *            the request type
+     */
+    void release(VaadinRequestType type) {
+        Budget budget = budgets.get(type);
+        if (budget != null) {
+            budget.permits.release();
+        }
+    }
+
+    /**
+     * Gets the budgets of the limited request types.
+     *
+     * @return the budgets by request type
+     */
+    Map<VaadinRequestType, Budget> getBudgets() {
+        return Collections.unmodifiableMap(budgets);
+    }
+}
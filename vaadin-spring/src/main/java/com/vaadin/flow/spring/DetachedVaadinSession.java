@@ -0,0 +1,43 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.vaadin.flow.server.VaadinService;
+
+/**
+ * Throwaway session which is not bound to an HTTP session, used to
+ * instantiate navigation targets outside of a request. Its scoped beans are
+ * destroyed by {@link #fireSessionDestroy()}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class DetachedVaadinSession extends SpringVaadinSession {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    DetachedVaadinSession(VaadinService service) {
+        super(service);
+    }
+
+    @Override
+    public Lock getLockInstance() {
+        return lock;
+    }
+}
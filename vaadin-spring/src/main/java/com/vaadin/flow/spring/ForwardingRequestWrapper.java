@@ -26,6 +26,11 @@ import com.vaadin.flow.server.VaadinServlet;
  * Creates an {@link HttpServletRequestWrapper} instance which returns
  * appropriate {@code servletPath} and {@code pathInfo} (which are expected by
  * {@link VaadinServlet}) in case forwarding is enforced.
+ * <p>
+ * A wrapper is created for every forwarded request without path info, since
+ * the forwarded paths can't be presented to {@link VaadinServlet} otherwise.
+ * Only the computation of the path within the servlet mapping is memoized:
+ * it is done at most once per wrapper.
  *
  * @see <a href="https://jira.spring.io/browse/SPR-17457">Spring issue</a>
  *
@@ -34,7 +39,12 @@ import com.vaadin.flow.server.VaadinServlet;
  */
 public class ForwardingRequestWrapper extends HttpServletRequestWrapper {
 
-    private UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    /**
+     * The path within the servlet mapping, computed once per request.
+     */
+    private String pathWithinServletMapping;
 
     public ForwardingRequestWrapper(HttpServletRequest request) {
         super(request);
@@ -56,9 +66,13 @@ public class ForwardingRequestWrapper extends HttpServletRequestWrapper {
     public String getPathInfo() {
         String pathInfo = super.getPathInfo();
         if (pathInfo == null) {
-            // this uses getServletPath() and should work both with and without
-            // clearServletPath
-            pathInfo = urlPathHelper.getPathWithinServletMapping(this);
+            if (pathWithinServletMapping == null) {
+                // this uses getServletPath() and should work both with and
+                // without clearServletPath
+                pathWithinServletMapping = URL_PATH_HELPER
+                        .getPathWithinServletMapping(this);
+            }
+            pathInfo = pathWithinServletMapping;
         }
         return pathInfo;
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.shared.ApplicationConstants;
+
+/**
+ * Handles heartbeat requests of sessions whose lock is held by another
+ * request without waiting for the lock.
+ * <p>
+ * The heartbeat timestamp is recorded by a session access task which is run
+ * by the thread holding the lock when it releases it, and the response is
+ * written right away. The container thread is therefore not tied up behind a
+ * long UIDL request. Heartbeats of sessions whose lock is free take the
+ * regular path, which also reports UIs that no longer exist.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+final class HeartbeatFastPath {
+
+    private HeartbeatFastPath() {
+        // Static methods only
+    }
+
+    /**
+     * Records the heartbeat of the request if the session lock is held by
+     * another thread.
+     *
+     * @param session
+     *            the session of the request
+     * @param request
+     *            the heartbeat request
+     * @param response
+     *            the response
+     * @return {@code true} if the heartbeat was handled, {@code false} if it
+     *         has to be handled by the regular path
+     */
+    static boolean handle(VaadinSession session, VaadinRequest request,
+            VaadinResponse response) {
+        if (session.getService() == null || !isLockedByOtherThread(session)) {
+            return false;
+        }
+        int uiId;
+        try {
+            uiId = Integer.parseInt(
+                    request.getParameter(ApplicationConstants.UI_ID_PARAMETER));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long timestamp = System.currentTimeMillis();
+        session.access(() -> {
+            UI ui = session.getUIById(uiId);
+            if (ui != null) {
+                ui.getInternals().setLastHeartbeatTimestamp(timestamp);
+            }
+        });
+        // Same response as the regular heartbeat handler
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Content-Type", "text/plain");
+        return true;
+    }
+
+    private static boolean isLockedByOtherThread(VaadinSession session) {
+        Lock lock = session.getLockInstance();
+        return lock instanceof ReentrantLock
+                && ((ReentrantLock) lock).isLocked()
+                && !((ReentrantLock) lock).isHeldByCurrentThread();
+    }
+}
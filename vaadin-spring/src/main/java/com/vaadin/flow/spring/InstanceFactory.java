@@ -0,0 +1,375 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.Aware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.InjectionPoint;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.MethodParameter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Creates instances of a class which is not a Spring bean in the same way as
+ * {@link AutowireCapableBeanFactory#createBean(Class)} does, but with the
+ * constructor and its injection points resolved only once.
+ * <p>
+ * A factory is available only for plain classes: classes without any Spring,
+ * {@code javax.annotation}, {@code javax.inject} or {@code javax.persistence}
+ * annotations and without {@link Aware} or lifecycle interfaces. The bean post
+ * processors of the bean factory are applied to each instance in the same
+ * phases as the bean factory does: before instantiation, property population
+ * and before and after initialization, so that for example auto-proxying and
+ * method validation still apply. Everything else goes through
+ * {@link AutowireCapableBeanFactory#createBean(Class)}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class InstanceFactory {
+
+    private static final String[] INJECTION_ANNOTATION_PACKAGES = {
+            "org.springframework.", "javax.annotation.", "javax.inject.",
+            "javax.persistence." };
+
+    private final AutowireCapableBeanFactory beanFactory;
+
+    private final Class<?> type;
+
+    private final String beanName;
+
+    private final MethodHandle constructor;
+
+    private final DependencyDescriptor[] parameters;
+
+    /**
+     * The post processors hooking into the instantiation and the property
+     * population, in order.
+     */
+    private final InstantiationAwareBeanPostProcessor[] instantiationPostProcessors;
+
+    /**
+     * The post processors whose initialization callbacks are run, in order.
+     */
+    private final BeanPostProcessor[] postProcessors;
+
+    /**
+     * The property descriptors passed to post processors supporting only
+     * {@link InstantiationAwareBeanPostProcessor#postProcessPropertyValues},
+     * resolved when first needed.
+     */
+    private volatile PropertyDescriptor[] propertyDescriptors;
+
+    private InstanceFactory(AutowireCapableBeanFactory beanFactory,
+            Class<?> type, Constructor<?> constructor,
+            List<BeanPostProcessor> postProcessors)
+            throws IllegalAccessException {
+        this.beanFactory = beanFactory;
+        this.type = type;
+        this.postProcessors = postProcessors
+                .toArray(new BeanPostProcessor[postProcessors.size()]);
+        instantiationPostProcessors = postProcessors.stream()
+                .filter(InstantiationAwareBeanPostProcessor.class::isInstance)
+                .map(InstantiationAwareBeanPostProcessor.class::cast)
+                .toArray(InstantiationAwareBeanPostProcessor[]::new);
+        beanName = type.getName();
+        ReflectionUtils.makeAccessible(constructor);
+        int count = constructor.getParameterCount();
+        this.constructor = MethodHandles.lookup()
+                .unreflectConstructor(constructor)
+                .asSpreader(Object[].class, count)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        parameters = new DependencyDescriptor[count];
+        for (int i = 0; i < count; i++) {
+            parameters[i] = new DependencyDescriptor(
+                    new MethodParameter(constructor, i), true);
+        }
+        // Run once per bean definition by the bean factory as well
+        RootBeanDefinition definition = new RootBeanDefinition(type);
+        definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        for (BeanPostProcessor processor : postProcessors) {
+            if (processor instanceof MergedBeanDefinitionPostProcessor) {
+                ((MergedBeanDefinitionPostProcessor) processor)
+                        .postProcessMergedBeanDefinition(definition, type,
+                                beanName);
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @return the new instance
+     */
+    Object create() {
+        for (InstantiationAwareBeanPostProcessor processor : instantiationPostProcessors) {
+            Object bean = processor.postProcessBeforeInstantiation(type,
+                    beanName);
+            if (bean != null) {
+                return applyAfterInitialization(bean);
+            }
+        }
+        Object bean = instantiate();
+        populate(bean);
+        for (BeanPostProcessor processor : postProcessors) {
+            Object current = processor.postProcessBeforeInitialization(bean,
+                    beanName);
+            if (current == null) {
+                // The bean factory keeps the current bean and still runs the
+                // after initialization callbacks
+                break;
+            }
+            bean = current;
+        }
+        return applyAfterInitialization(bean);
+    }
+
+    private void populate(Object bean) {
+        for (InstantiationAwareBeanPostProcessor processor : instantiationPostProcessors) {
+            if (!processor.postProcessAfterInstantiation(bean, beanName)) {
+                return;
+            }
+        }
+        PropertyValues values = new MutablePropertyValues();
+        for (InstantiationAwareBeanPostProcessor processor : instantiationPostProcessors) {
+            PropertyValues current = processor.postProcessProperties(values,
+                    bean, beanName);
+            if (current == null) {
+                current = processor.postProcessPropertyValues(values,
+                        getPropertyDescriptors(), bean, beanName);
+                if (current == null) {
+                    return;
+                }
+            }
+            values = current;
+        }
+        if (!values.isEmpty()) {
+            AbstractBeanFactory factory = (AbstractBeanFactory) beanFactory;
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(bean);
+            wrapper.setConversionService(factory.getConversionService());
+            factory.copyRegisteredEditorsTo(wrapper);
+            wrapper.setPropertyValues(values);
+        }
+    }
+
+    private PropertyDescriptor[] getPropertyDescriptors() {
+        PropertyDescriptor[] descriptors = propertyDescriptors;
+        if (descriptors == null) {
+            descriptors = BeanUtils.getPropertyDescriptors(type);
+            propertyDescriptors = descriptors;
+        }
+        return descriptors;
+    }
+
+    private Object instantiate() {
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            args[i] = beanFactory.resolveDependency(parameters[i], beanName);
+        }
+        try {
+            return (Object) constructor.invokeExact(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanInstantiationException(type,
+                    "Constructor threw exception", e);
+        }
+    }
+
+    private Object applyAfterInitialization(Object bean) {
+        Object result = bean;
+        for (BeanPostProcessor processor : postProcessors) {
+            Object current = processor.postProcessAfterInitialization(result,
+                    beanName);
+            if (current == null) {
+                return result;
+            }
+            result = current;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a factory for the given {@code type} if the type and the bean
+     * factory allow it.
+     *
+     * @param type
+     *            the type to create a factory for
+     * @param beanFactory
+     *            the bean factory used to resolve dependencies
+     * @return a new factory, or {@code null} if instances of the type should
+     *         be created via
+     *         {@link AutowireCapableBeanFactory#createBean(Class)}
+     */
+    static InstanceFactory create(Class<?> type,
+            AutowireCapableBeanFactory beanFactory) {
+        List<BeanPostProcessor> postProcessors = getPostProcessors(
+                beanFactory);
+        if (postProcessors == null || !isPlainClass(type)) {
+            return null;
+        }
+        Constructor<?> constructor = findConstructor(type);
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return new InstanceFactory(beanFactory, type, constructor,
+                    postProcessors);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the post processors of the bean factory.
+     *
+     * @return the post processors, or {@code null} if the bean factory
+     *         doesn't expose them
+     */
+    private static List<BeanPostProcessor> getPostProcessors(
+            AutowireCapableBeanFactory beanFactory) {
+        if (!(beanFactory instanceof AbstractBeanFactory)) {
+            return null;
+        }
+        return ((AbstractBeanFactory) beanFactory).getBeanPostProcessors();
+    }
+
+    private static boolean isPlainClass(Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers()) || type.isMemberClass()
+                && !Modifier.isStatic(type.getModifiers())) {
+            return false;
+        }
+        if (Aware.class.isAssignableFrom(type)
+                || InitializingBean.class.isAssignableFrom(type)
+                || DisposableBean.class.isAssignableFrom(type)) {
+            return false;
+        }
+        for (Class<?> clazz : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+            if (hasInjectionAnnotation(clazz)) {
+                return false;
+            }
+        }
+        AtomicBoolean annotated = new AtomicBoolean();
+        Class<?> clazz = type;
+        while (clazz != null && clazz != Object.class) {
+            if (hasInjectionAnnotation(clazz)) {
+                return false;
+            }
+            ReflectionUtils.doWithLocalFields(clazz, field -> annotated
+                    .compareAndSet(false, hasInjectionAnnotation(field)));
+            ReflectionUtils.doWithLocalMethods(clazz, method -> annotated
+                    .compareAndSet(false, hasInjectionAnnotation(method)));
+            for (Constructor<?> constructor : clazz
+                    .getDeclaredConstructors()) {
+                annotated.compareAndSet(false,
+                        hasInjectionAnnotation(constructor));
+            }
+            if (annotated.get()) {
+                return false;
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return true;
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type) {
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        if (constructors.length == 1) {
+            Constructor<?> constructor = constructors[0];
+            for (Class<?> parameterType : constructor.getParameterTypes()) {
+                if (InjectionPoint.class.isAssignableFrom(parameterType)) {
+                    return null;
+                }
+            }
+            return constructor;
+        }
+        for (Constructor<?> constructor : constructors) {
+            if (constructor.getParameterCount() == 0) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasInjectionAnnotation(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            if (isInjectionAnnotation(annotation.annotationType(),
+                    new HashSet<>())) {
+                return true;
+            }
+        }
+        if (element instanceof Executable) {
+            for (Annotation[] annotations : ((Executable) element)
+                    .getParameterAnnotations()) {
+                for (Annotation annotation : annotations) {
+                    if (isInjectionAnnotation(annotation.annotationType(),
+                            new HashSet<>())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInjectionAnnotation(
+            Class<? extends Annotation> annotationType,
+            Set<Class<?>> visited) {
+        if (!visited.add(annotationType) || annotationType.getName()
+                .startsWith("java.lang.annotation.")) {
+            return false;
+        }
+        for (String prefix : INJECTION_ANNOTATION_PACKAGES) {
+            if (annotationType.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (Annotation meta : annotationType.getAnnotations()) {
+            if (isInjectionAnnotation(meta.annotationType(), visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.ApplicationContext;
+
+import com.vaadin.flow.i18n.I18NProvider;
+import com.vaadin.flow.server.RouteRegistry;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
+import com.vaadin.flow.spring.i18n.CachingI18NProvider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the latency of the requests handled by the Vaadin servlet in a
+ * Micrometer {@link Timer} with percentile histograms.
+ * <p>
+ * The timer is tagged by the {@link VaadinRequestType request type}, the
+ * response status and, for bootstrap requests, the route template of the
+ * navigation target. The counters of the service, e.g. the hits and misses
+ * of its caches, are reported as function counters and gauges, so that the
+ * hit ratios can be computed by the monitoring system. The class must be
+ * loaded only if Micrometer is on the classpath.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class MicrometerRequestMetrics {
+
+    static final String METER_NAME = "vaadin.requests";
+
+    static final String UNMATCHED_ROUTE = "unmatched";
+
+    static final String NO_ROUTE = "none";
+
+    static final String ADMISSION_METER_NAME = "vaadin.admission";
+
+    static final String SCOPE_LOCK_TIMEOUTS_METER_NAME = "vaadin.scope.lock"
+            + ".timeouts";
+
+    static final String CACHE_GETS_METER_NAME = "vaadin.cache.gets";
+
+    static final String CACHE_EVICTIONS_METER_NAME = "vaadin.cache.evictions";
+
+    static final String CACHE_SIZE_METER_NAME = "vaadin.cache.size";
+
+    static final String STATIC_RESOURCE_CACHE = "staticResources";
+
+    static final String RESOURCE_BYTES_CACHE = "resourceBytes";
+
+    static final String I18N_CACHE = "i18n";
+
+    private final MeterRegistry registry;
+
+    private final RouteRegistry routeRegistry;
+
+    /**
+     * Registered timers by their tags, so that the meter registry isn't
+     * looked up on every request.
+     */
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private static final class TimerKey {
+
+        private final VaadinRequestType type;
+
+        private final int status;
+
+        private final String route;
+
+        private TimerKey(VaadinRequestType type, int status, String route) {
+            this.type = type;
+            this.status = status;
+            this.route = route;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TimerKey)) {
+                return false;
+            }
+            TimerKey other = (TimerKey) obj;
+            return type == other.type && status == other.status
+                    && route.equals(other.route);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, status, route);
+        }
+    }
+
+    /**
+     * Creates a new instance recording to the given {@code registry}.
+     *
+     * @param registry
+     *            the meter registry
+     * @param routeRegistry
+     *            the route registry used to resolve route templates
+     */
+    MicrometerRequestMetrics(MeterRegistry registry,
+            RouteRegistry routeRegistry) {
+        this.registry = registry;
+        this.routeRegistry = routeRegistry;
+    }
+
+    /**
+     * Creates a new instance recording to the meter registry of the
+     * {@code context}.
+     *
+     * @param context
+     *            the application context
+     * @param servletContext
+     *            the servlet context of the Vaadin servlet
+     * @return the metrics, or {@code null} if there is no meter registry
+     */
+    static MicrometerRequestMetrics create(ApplicationContext context,
+            ServletContext servletContext) {
+        MeterRegistry registry = context.getBeanProvider(MeterRegistry.class)
+                .getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        return new MicrometerRequestMetrics(registry,
+                ApplicationRouteRegistry.getInstance(servletContext));
+    }
+
+    /**
+     * Records a handled request.
+     *
+     * @param request
+     *            the request as seen by the Vaadin servlet
+     * @param response
+     *            the response
+     * @param type
+     *            the request type
+     * @param failed
+     *            whether the request handling threw an exception
+     * @param nanos
+     *            the handling duration in nanoseconds
+     */
+    void record(HttpServletRequest request, HttpServletResponse response,
+            VaadinRequestType type, boolean failed, long nanos) {
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                : response.getStatus();
+        String route = type == VaadinRequestType.BOOTSTRAP
+                ? getRouteTemplate(request)
+                : NO_ROUTE;
+        if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            type = VaadinRequestType.ERROR;
+        }
+        timers.computeIfAbsent(new TimerKey(type, status, route),
+                this::registerTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer registerTimer(TimerKey key) {
+        return Timer.builder(METER_NAME)
+                .description("Requests handled by the Vaadin servlet")
+                .tag("type", key.type.getTag())
+                .tag("status", Integer.toString(key.status))
+                .tag("route", key.route).publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Reports the counters of the given service: the scope lock timeouts,
+     * the hits and misses of the static resource lookup cache and of the
+     * resource content cache along with its evictions and size, and the hits
+     * and misses of the translation cache if the I18N provider caches.
+     *
+     * @param service
+     *            the initialized service
+     */
+    void bind(SpringVaadinServletService service) {
+        FunctionCounter
+                .builder(SCOPE_LOCK_TIMEOUTS_METER_NAME, service,
+                        SpringVaadinServletService::getScopeLockTimeoutCount)
+                .description("Vaadin scope accesses which timed out waiting "
+                        + "for the session lock")
+                .register(registry);
+        bindCacheGets(STATIC_RESOURCE_CACHE, service,
+                SpringVaadinServletService::getResourceCacheHitCount,
+                SpringVaadinServletService::getResourceCacheMissCount);
+        bindCacheGets(RESOURCE_BYTES_CACHE, service,
+                SpringVaadinServletService::getResourceBytesCacheHitCount,
+                SpringVaadinServletService::getResourceBytesCacheMissCount);
+        FunctionCounter
+                .builder(CACHE_EVICTIONS_METER_NAME, service,
+                        SpringVaadinServletService::getResourceBytesCacheEvictionCount)
+                .description("Entries evicted from the cache")
+                .tag("cache", RESOURCE_BYTES_CACHE).register(registry);
+        Gauge.builder(CACHE_SIZE_METER_NAME, service,
+                SpringVaadinServletService::getResourceBytesCacheUsedBytes)
+                .description("Size of the cached contents").baseUnit("bytes")
+                .tag("cache", RESOURCE_BYTES_CACHE).register(registry);
+
+        if (service.getDeploymentConfiguration().getApplicationOrSystemProperty(
+                SpringConstants.I18N_CACHE_SIZE, 0, Integer::parseInt) > 0) {
+            // the provider is looked up on every read since the instantiator
+            // replaces it when the application context is refreshed
+            bindCacheGets(I18N_CACHE, service,
+                    s -> getI18NCache(s).map(CachingI18NProvider::getHitCount)
+                            .orElse(0L),
+                    s -> getI18NCache(s).map(CachingI18NProvider::getMissCount)
+                            .orElse(0L));
+        }
+    }
+
+    private static Optional<CachingI18NProvider> getI18NCache(
+            VaadinService service) {
+        I18NProvider provider = service.getInstantiator().getI18NProvider();
+        return provider instanceof CachingI18NProvider
+                ? Optional.of((CachingI18NProvider) provider)
+                : Optional.empty();
+    }
+
+    private <T> void bindCacheGets(String cache, T source,
+            ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder(CACHE_GETS_METER_NAME, source, hits)
+                .description("Lookups answered from the cache")
+                .tag("cache", cache).tag("result", "hit").register(registry);
+        FunctionCounter.builder(CACHE_GETS_METER_NAME, source, misses)
+                .description("Lookups which were not found in the cache")
+                .tag("cache", cache).tag("result", "miss")
+                .register(registry);
+    }
+
+    /**
+     * Reports the admitted, queued and shed requests of the given admission
+     * controller by request type, along with the active and waiting requests.
+     *
+     * @param controller
+     *            the admission controller
+     */
+    void bind(AdmissionController controller) {
+        controller.getBudgets().forEach((type, budget) -> {
+            String tag = type.getTag();
+            FunctionCounter
+                    .builder(ADMISSION_METER_NAME, budget,
+                            AdmissionController.Budget::getAdmittedCount)
+                    .description("Requests admitted by the admission control")
+                    .tag("type", tag).tag("outcome", "admitted")
+                    .register(registry);
+            FunctionCounter
+                    .builder(ADMISSION_METER_NAME, budget,
+                            AdmissionController.Budget::getQueuedCount)
+                    .description(
+                            "Requests which waited for admission in the queue")
+                    .tag("type", tag).tag("outcome", "queued")
+                    .register(registry);
+            FunctionCounter
+                    .builder(ADMISSION_METER_NAME, budget,
+                            AdmissionController.Budget::getShedCount)
+                    .description("Requests rejected by the admission control")
+                    .tag("type", tag).tag("outcome", "shed")
+                    .register(registry);
+            Gauge.builder(ADMISSION_METER_NAME + ".active", budget,
+                    AdmissionController.Budget::getActiveCount)
+                    .description("Admitted requests being handled")
+                    .tag("type", tag).register(registry);
+            Gauge.builder(ADMISSION_METER_NAME + ".waiting", budget,
+                    AdmissionController.Budget::getWaitingCount)
+                    .description("Requests waiting for admission")
+                    .tag("type", tag).register(registry);
+        });
+    }
+
+    private String getRouteTemplate(HttpServletRequest request) {
+        String path = request.getPathInfo();
+        if (path == null) {
+            return UNMATCHED_ROUTE;
+        }
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return routeRegistry.getNavigationTarget(path)
+                .flatMap(routeRegistry::getTargetUrl)
+                .map(template -> "/" + template).orElse(UNMATCHED_ROUTE);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Cache of gzip compressed static resources kept in direct (off-heap)
+ * buffers.
+ * <p>
+ * Resources are compressed in a background thread: either all the resources
+ * passed to {@link #compressAll(Map)} or a resource the first time it is
+ * requested. Until then the resource is served uncompressed. Resources which
+ * have precompressed {@literal .gz} or {@literal .br} variants, are not text
+ * based, are small or don't get smaller are never cached. When the total size
+ * of the compressed content reaches the limit further resources are not
+ * cached.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class PrecompressedResourceCache implements Closeable {
+
+    private static final Set<String> EXTENSIONS = new HashSet<>(
+            Arrays.asList("js", "mjs", "css", "html", "htm", "json", "map",
+                    "svg", "txt", "xml"));
+
+    private static final int MIN_LENGTH = 256;
+
+    private final int level;
+
+    private final long maxBytes;
+
+    private final Function<String, URL> locator;
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors
+            .newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable,
+                        "vaadin-resource-compression");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    /**
+     * Compressed content of a resource.
+     */
+    static final class Entry {
+
+        private final URL url;
+
+        private final long lastModified;
+
+        private final ByteBuffer content;
+
+        private final String etag;
+
+        private Entry(URL url, long lastModified, ByteBuffer content,
+                String etag) {
+            this.url = url;
+            this.lastModified = lastModified;
+            this.content = content;
+            this.etag = etag;
+        }
+
+        /**
+         * Gets a read-only view of the compressed content.
+         *
+         * @return the compressed content
+         */
+        ByteBuffer getContent() {
+            return content.asReadOnlyBuffer();
+        }
+
+        /**
+         * Gets the strong {@literal ETag} of the compressed representation.
+         *
+         * @return the quoted ETag
+         */
+        String getETag() {
+            return etag;
+        }
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param level
+     *            the compression level, from 1 to 9
+     * @param maxBytes
+     *            the maximum total size of the compressed content
+     * @param locator
+     *            resolves a resource path, used to detect precompressed
+     *            variants
+     */
+    PrecompressedResourceCache(int level, long maxBytes,
+            Function<String, URL> locator) {
+        this.level = level;
+        this.maxBytes = maxBytes;
+        this.locator = locator;
+    }
+
+    /**
+     * Checks whether the resource with the given {@code path} is worth
+     * compressing based on its type.
+     *
+     * @param path
+     *            the resource path
+     * @return {@code true} if the resource is text based
+     */
+    static boolean isCompressible(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') && EXTENSIONS
+                .contains(path.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Gets the compressed content of the resource with the given {@code path}
+     * resolved to {@code url}. Schedules the compression if the resource is
+     * not cached yet.
+     *
+     * @param path
+     *            the resource path
+     * @param url
+     *            the resolved resource URL
+     * @return the compressed content, or {@code null} if the resource is not
+     *         (yet) available compressed
+     */
+    Entry get(String path, URL url) {
+        Entry entry = entries.get(path);
+        if (entry != null && entry.url.toString().equals(url.toString())
+                && entry.lastModified == getLastModified(url)) {
+            return entry.content == null ? null : entry;
+        }
+        schedule(path, url);
+        return null;
+    }
+
+    /**
+     * Schedules the compression of all the given resources.
+     *
+     * @param resources
+     *            the resource URLs keyed by path
+     */
+    void compressAll(Map<String, URL> resources) {
+        resources.forEach((path, url) -> {
+            if (isCompressible(path)) {
+                schedule("/" + path, url);
+            }
+        });
+    }
+
+    /**
+     * Gets the total size of the cached compressed content.
+     *
+     * @return the size in bytes
+     */
+    long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(String path, URL url) {
+        if (!pending.add(path)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    compress(path, url);
+                } finally {
+                    pending.remove(path);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(path);
+        }
+    }
+
+    private void compress(String path, URL url) {
+        long lastModified = getLastModified(url);
+        Entry entry;
+        if (locator.apply(path + ".gz") != null
+                || locator.apply(path + ".br") != null) {
+            entry = new Entry(url, lastModified, null, null);
+        } else {
+            try {
+                entry = createEntry(url, lastModified);
+            } catch (IOException e) {
+                getLogger().debug("Unable to compress {}", url, e);
+                return;
+            }
+        }
+        int size = entry.content == null ? 0 : entry.content.capacity();
+        if (usedBytes.addAndGet(size) > maxBytes) {
+            usedBytes.addAndGet(-size);
+            entry = new Entry(url, lastModified, null, null);
+        }
+        Entry previous = entries.put(path, entry);
+        if (previous != null && previous.content != null) {
+            usedBytes.addAndGet(-previous.content.capacity());
+        }
+    }
+
+    private Entry createEntry(URL url, long lastModified) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        long length;
+        try (InputStream stream = new DigestInputStream(url.openStream(),
+                digest); OutputStream out = createGzipStream(compressed)) {
+            length = StreamUtils.copy(stream, out);
+        }
+        if (length < MIN_LENGTH || compressed.size() >= length) {
+            return new Entry(url, lastModified, null, null);
+        }
+        ByteBuffer content = ByteBuffer.allocateDirect(compressed.size());
+        content.put(compressed.toByteArray());
+        content.flip();
+        String etag = '"' + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest()) + "-gzip\"";
+        return new Entry(url, lastModified, content, etag);
+    }
+
+    private OutputStream createGzipStream(OutputStream out)
+            throws IOException {
+        return new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    /**
+     * Gets the modification time of a file, other resources (e.g. jar
+     * entries) don't change at runtime.
+     */
+    private static long getLastModified(URL url) {
+        if (ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI()).toFile().lastModified();
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(PrecompressedResourceCache.class);
+    }
+}
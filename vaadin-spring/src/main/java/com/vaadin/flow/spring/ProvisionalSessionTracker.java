@@ -0,0 +1,135 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks the sessions created by a bootstrap request until the client comes
+ * back with another request in the same session, which proves that it keeps
+ * the session cookie and runs the client engine. Health checks, crawlers and
+ * link preview bots typically fetch a single page without cookies, so their
+ * sessions are never confirmed and are closed once their timeout has passed
+ * instead of living until the HTTP session timeout.
+ * <p>
+ * Expired sessions are closed with {@link VaadinSessionCloser}, which keeps
+ * the other attributes of the HTTP session, such as a security context.
+ * <p>
+ * Expired sessions are invalidated when new sessions are tracked, so the cost
+ * is paid by the requests creating sessions and nothing runs while no new
+ * sessions are created.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class ProvisionalSessionTracker {
+
+    private static class Entry {
+
+        private final WeakReference<SpringVaadinSession> session;
+
+        private final long deadline;
+
+        private Entry(SpringVaadinSession session, long deadline) {
+            this.session = new WeakReference<>(session);
+            this.deadline = deadline;
+        }
+    }
+
+    private final long timeoutMillis;
+
+    private final String sessionAttributeName;
+
+    /**
+     * Tracked sessions in the order of their deadlines.
+     */
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean expiring = new AtomicBoolean();
+
+    /**
+     * Creates a new tracker.
+     *
+     * @param timeoutMillis
+     *            the time in milliseconds a session may stay unconfirmed
+     * @param sessionAttributeName
+     *            the name of the HTTP session attribute holding the Vaadin
+     *            session, which is also the prefix of the names of the other
+     *            attributes set by Vaadin
+     */
+    ProvisionalSessionTracker(long timeoutMillis,
+            String sessionAttributeName) {
+        this.timeoutMillis = timeoutMillis;
+        this.sessionAttributeName = sessionAttributeName;
+    }
+
+    /**
+     * Starts tracking a session created by a bootstrap request and closes the
+     * tracked sessions which have expired.
+     *
+     * @param session
+     *            the new session
+     */
+    void track(SpringVaadinSession session) {
+        long now = System.currentTimeMillis();
+        session.setProvisional(true);
+        entries.add(new Entry(session, now + timeoutMillis));
+        expire(now);
+    }
+
+    /**
+     * Closes the sessions which are still provisional after their timeout.
+     *
+     * @param now
+     *            the current time in milliseconds
+     * @return the number of closed sessions
+     */
+    int expire(long now) {
+        if (!expiring.compareAndSet(false, true)) {
+            return 0;
+        }
+        int expired = 0;
+        try {
+            Entry entry;
+            while ((entry = entries.peek()) != null && entry.deadline <= now) {
+                entries.poll();
+                SpringVaadinSession session = entry.session.get();
+                if (session != null && session.isProvisional()
+                        && VaadinSessionCloser.close(session,
+                                sessionAttributeName)) {
+                    expired++;
+                }
+            }
+        } finally {
+            expiring.set(false);
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the number of tracked entries, including the confirmed sessions
+     * whose timeout hasn't passed yet.
+     *
+     * @return the number of tracked entries
+     */
+    int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.StreamUtils;
+
+/**
+ * Least recently used cache of resource contents kept in direct (off-heap)
+ * buffers, bounded by the total size of the contents.
+ * <p>
+ * Intended for resources in (nested) jar files whose every read means an
+ * entry lookup and inflation. A resource larger than a quarter of the cache
+ * or of unknown size is streamed without caching.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class ResourceBytesCache {
+
+    private final long maxBytes;
+
+    private final long maxEntryBytes;
+
+    private final Map<String, ByteBuffer> contents = new LinkedHashMap<>(16,
+            0.75f, true);
+
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0,
+                    Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxBytes
+     *            the maximum total size of the cached contents
+     */
+    ResourceBytesCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        maxEntryBytes = maxBytes / 4;
+    }
+
+    /**
+     * Opens a stream to the content of the resource at the given {@code url},
+     * reading the content from the cache if possible.
+     *
+     * @param url
+     *            the resource URL
+     * @return the content stream
+     * @throws IOException
+     *             if the resource cannot be read
+     */
+    InputStream openStream(URL url) throws IOException {
+        String key = url.toString();
+        ByteBuffer content;
+        synchronized (contents) {
+            content = contents.get(key);
+        }
+        if (content != null) {
+            hits.increment();
+            return new ByteBufferInputStream(content.duplicate());
+        }
+        misses.increment();
+        URLConnection connection = url.openConnection();
+        long length = connection.getContentLengthLong();
+        if (length < 0 || length > maxEntryBytes) {
+            return connection.getInputStream();
+        }
+        byte[] bytes;
+        try (InputStream stream = connection.getInputStream()) {
+            bytes = StreamUtils.copyToByteArray(stream);
+        }
+        put(key, bytes);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Gets the number of reads answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of reads which were not found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of contents evicted to make room for others.
+     *
+     * @return the number of evictions
+     */
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the total size of the cached contents.
+     *
+     * @return the size in bytes
+     */
+    long getUsedBytes() {
+        synchronized (contents) {
+            return usedBytes;
+        }
+    }
+
+    /**
+     * Removes all the cached contents.
+     */
+    void clear() {
+        synchronized (contents) {
+            contents.clear();
+            usedBytes = 0;
+        }
+    }
+
+    private void put(String key, byte[] bytes) {
+        if (bytes.length > maxEntryBytes) {
+            return;
+        }
+        ByteBuffer content = ByteBuffer.allocateDirect(bytes.length);
+        content.put(bytes);
+        content.flip();
+        synchronized (contents) {
+            ByteBuffer previous = contents.put(key, content);
+            if (previous != null) {
+                usedBytes -= previous.capacity();
+            }
+            usedBytes += bytes.length;
+            Iterator<ByteBuffer> iterator = contents.values().iterator();
+            while (usedBytes > maxBytes && iterator.hasNext()) {
+                ByteBuffer eldest = iterator.next();
+                if (eldest == content) {
+                    continue;
+                }
+                iterator.remove();
+                usedBytes -= eldest.capacity();
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.router.RouteData;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
+
+/**
+ * Instantiates every registered navigation target through the service
+ * instantiator in a throwaway session and UI when the application starts.
+ * <p>
+ * This makes the first users of each view not pay for class loading, Spring
+ * injection metadata building and interpreted execution of the instantiation
+ * path. The warm-up is run by {@link SpringServlet} at the end of its
+ * initialization. The embedded web server starts accepting connections before
+ * it initializes the servlets loaded on startup, but the requests mapped to
+ * the Vaadin servlet wait for its initialization to complete, so they are not
+ * served before the warm-up is done. The Vaadin servlet has to be loaded on
+ * startup, see {@link VaadinConfigurationProperties.WarmUp}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class RouteTargetWarmUp {
+
+    private final SpringServlet servlet;
+
+    private final int iterations;
+
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    /**
+     * Creates a new warm-up instance.
+     *
+     * @param servlet
+     *            the Vaadin servlet whose navigation targets are instantiated
+     * @param iterations
+     *            the number of times each navigation target is instantiated
+     */
+    public RouteTargetWarmUp(SpringServlet servlet, int iterations) {
+        this.servlet = servlet;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Instantiates the navigation targets unless it has already been done.
+     */
+    public void run() {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        VaadinService service = servlet.getService();
+        if (service == null) {
+            getLogger().warn(
+                    "Skipping the warm-up: the Vaadin servlet is not initialized");
+            return;
+        }
+        List<Class<? extends Component>> targets = ApplicationRouteRegistry
+                .getInstance(servlet.getServletContext()).getRegisteredRoutes()
+                .stream().map(RouteData::getNavigationTarget)
+                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        Set<Class<?>> failed = new HashSet<>();
+        for (int i = 0; i < iterations; i++) {
+            warmUp(service, targets, failed);
+        }
+        getLogger().info(
+                "Warmed up {} navigation targets in {} ms, {} of them failed to be instantiated",
+                targets.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                failed.size());
+    }
+
+    private void warmUp(VaadinService service,
+            List<Class<? extends Component>> targets, Set<Class<?>> failed) {
+        DetachedVaadinSession session = new DetachedVaadinSession(service);
+        session.lock();
+        try {
+            VaadinSession.setCurrent(session);
+            for (Class<? extends Component> target : targets) {
+                UI ui = new UI();
+                ui.getInternals().setSession(session);
+                UI.setCurrent(ui);
+                try {
+                    service.getInstantiator().createRouteTarget(target, null);
+                } catch (RuntimeException e) {
+                    if (failed.add(target)) {
+                        getLogger().debug("Unable to warm up {}",
+                                target.getName(), e);
+                    }
+                }
+            }
+        } finally {
+            try {
+                session.fireSessionDestroy();
+            } finally {
+                session.unlock();
+                CurrentInstance.clearAll();
+            }
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(RouteTargetWarmUp.class);
+    }
+}
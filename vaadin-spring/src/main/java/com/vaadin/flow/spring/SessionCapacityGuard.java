@@ -0,0 +1,295 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.function.DeploymentConfiguration;
+
+/**
+ * Decides whether a new Vaadin session may be created on this node, based on
+ * the number of live sessions and on the heap occupancy after the last garbage
+ * collection, which is dominated by the session state in a Vaadin application.
+ * <p>
+ * When a limit is reached the new session is rejected or, if eviction is
+ * enabled, the least recently active idle sessions are closed first with
+ * {@link VaadinSessionCloser}, which keeps the other attributes of their HTTP
+ * sessions. The closed sessions go through the normal destroy path, so their
+ * scoped beans are destroyed. The limits are soft: sessions created concurrently may
+ * exceed them slightly.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class SessionCapacityGuard {
+
+    /**
+     * Value of the {@literal Retry-After} header of rejected requests.
+     */
+    static final int RETRY_AFTER_SECONDS = 30;
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory
+            .getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory
+            .getGarbageCollectorMXBeans();
+
+    private final int maxSessions;
+
+    private final double maxHeapRatio;
+
+    private final boolean evict;
+
+    private final long idleMillis;
+
+    private final String sessionAttributeName;
+
+    private final DoubleSupplier heapRatio;
+
+    private final LongSupplier gcCount;
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * The garbage collection count when sessions were last evicted because of
+     * the heap limit. The heap occupancy is not updated until the next
+     * collection, so it isn't checked again until then.
+     */
+    private volatile long heapEvictionGcCount = -1;
+
+    /**
+     * The last heap occupancy read, which doesn't change until the next
+     * collection.
+     */
+    private volatile HeapSample heapSample;
+
+    private static final class HeapSample {
+
+        private final long gcCount;
+
+        private final double ratio;
+
+        private HeapSample(long gcCount, double ratio) {
+            this.gcCount = gcCount;
+            this.ratio = ratio;
+        }
+    }
+
+    /**
+     * Creates a new guard measuring the heap of this JVM.
+     *
+     * @param maxSessions
+     *            the maximum number of live sessions, not positive for no
+     *            limit
+     * @param maxHeapRatio
+     *            the maximum ratio of the heap used after a garbage
+     *            collection to the maximum heap, not positive for no limit
+     * @param evict
+     *            whether idle sessions are evicted when a limit is reached
+     * @param idleMillis
+     *            the time in milliseconds since the last request after which
+     *            a session is idle
+     * @param sessionAttributeName
+     *            the name of the HTTP session attribute holding the Vaadin
+     *            session
+     */
+    SessionCapacityGuard(int maxSessions, double maxHeapRatio, boolean evict,
+            long idleMillis, String sessionAttributeName) {
+        this(maxSessions, maxHeapRatio, evict, idleMillis,
+                sessionAttributeName,
+                SessionCapacityGuard::getHeapRatioAfterGc,
+                SessionCapacityGuard::getGcCount);
+    }
+
+    SessionCapacityGuard(int maxSessions, double maxHeapRatio, boolean evict,
+            long idleMillis, String sessionAttributeName,
+            DoubleSupplier heapRatio, LongSupplier gcCount) {
+        this.maxSessions = maxSessions;
+        this.maxHeapRatio = maxHeapRatio;
+        this.evict = evict;
+        this.idleMillis = idleMillis;
+        this.sessionAttributeName = sessionAttributeName;
+        this.heapRatio = heapRatio;
+        this.gcCount = gcCount;
+    }
+
+    /**
+     * Checks whether a new session may be created, evicting idle sessions if
+     * needed and enabled.
+     *
+     * @param registry
+     *            the registry of the live sessions
+     * @return {@code true} if a new session may be created, {@code false} if
+     *         it should be rejected
+     */
+    boolean admit(VaadinSessionRegistry registry) {
+        int excessSessions = getExcessSessions(registry);
+        int excessHeapSessions = getExcessHeapSessions(registry);
+        if (excessSessions <= 0 && excessHeapSessions <= 0) {
+            return true;
+        }
+        if (!evict || !evicting.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            evictIdleSessions(registry,
+                    Math.max(excessSessions, excessHeapSessions));
+            if (excessHeapSessions > 0) {
+                heapEvictionGcCount = gcCount.getAsLong();
+            }
+        } finally {
+            evicting.set(false);
+        }
+        return getExcessSessions(registry) <= 0
+                && getExcessHeapSessions(registry) <= 0;
+    }
+
+    private int getExcessSessions(VaadinSessionRegistry registry) {
+        if (maxSessions <= 0) {
+            return 0;
+        }
+        return registry.getSessionCount() - maxSessions + 1;
+    }
+
+    /**
+     * Estimates the number of sessions to release to get below the heap
+     * limit, assuming that the sessions take the used heap evenly.
+     */
+    private int getExcessHeapSessions(VaadinSessionRegistry registry) {
+        if (maxHeapRatio <= 0) {
+            return 0;
+        }
+        long count = gcCount.getAsLong();
+        if (heapEvictionGcCount == count) {
+            return 0;
+        }
+        double ratio = getHeapRatio(count);
+        if (ratio < maxHeapRatio) {
+            return 0;
+        }
+        return (int) Math.ceil(registry.getSessionCount()
+                * (ratio - maxHeapRatio) / ratio) + 1;
+    }
+
+    private double getHeapRatio(long count) {
+        HeapSample sample = heapSample;
+        if (sample == null || sample.gcCount != count) {
+            sample = new HeapSample(count, heapRatio.getAsDouble());
+            heapSample = sample;
+        }
+        return sample.ratio;
+    }
+
+    private void evictIdleSessions(VaadinSessionRegistry registry, int count) {
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        // Keeps the count least recently active sessions, the most recent one
+        // at the head
+        PriorityQueue<SpringVaadinSession> candidates = new PriorityQueue<>(
+                count, Comparator.comparingLong(
+                        SpringVaadinSession::getLastRequestTimestamp)
+                        .reversed());
+        for (SpringVaadinSession session : registry.getSessions()) {
+            if (session.getLastRequestTimestamp() > idleSince) {
+                continue;
+            }
+            candidates.add(session);
+            if (candidates.size() > count) {
+                candidates.poll();
+            }
+        }
+        int evicted = 0;
+        for (SpringVaadinSession session : candidates) {
+            if (VaadinSessionCloser.close(session, sessionAttributeName)) {
+                // The destruction may run later on the serial executor of
+                // the session
+                registry.unregister(session);
+                evicted++;
+            }
+        }
+        getLogger().debug("Evicted {} idle sessions of the {} requested",
+                evicted, count);
+    }
+
+    /**
+     * Gets the time in seconds since the last request after which a session
+     * may be evicted, as configured with
+     * {@link SpringConstants#SESSION_EVICTION_IDLE_TIME}. The time is raised
+     * to cover a few heartbeats at the longest interval, since open browser
+     * tabs make no other requests while the user is idle.
+     *
+     * @param configuration
+     *            the deployment configuration
+     * @return the idle time in seconds
+     */
+    static int getIdleTime(DeploymentConfiguration configuration) {
+        int heartbeatInterval = configuration instanceof AdaptiveHeartbeatDeploymentConfiguration
+                ? ((AdaptiveHeartbeatDeploymentConfiguration) configuration)
+                        .getAdaptiveHeartbeat().getMaxInterval()
+                : configuration.getHeartbeatInterval();
+        if (heartbeatInterval <= 0) {
+            return configuration.getApplicationOrSystemProperty(
+                    SpringConstants.SESSION_EVICTION_IDLE_TIME,
+                    SpringConstants.DEFAULT_SESSION_EVICTION_IDLE_TIME,
+                    Integer::parseInt);
+        }
+        int minimum = SpringConstants.SESSION_EVICTION_IDLE_HEARTBEATS
+                * heartbeatInterval
+                + SpringConstants.PROVISIONAL_SESSION_GRACE_TIME;
+        return Math.max(minimum,
+                configuration.getApplicationOrSystemProperty(
+                        SpringConstants.SESSION_EVICTION_IDLE_TIME, minimum,
+                        Integer::parseInt));
+    }
+
+    private static double getHeapRatioAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return (double) used / Runtime.getRuntime().maxMemory();
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(SessionCapacityGuard.class);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.server.FutureAccess;
+import com.vaadin.flow.server.VaadinSession;
+
+/**
+ * Runs the tasks submitted for a session one at a time, in submission order
+ * and while holding the session lock, on a pool shared by all the sessions.
+ * <p>
+ * The executor has no thread of its own: the first task submitted to an idle
+ * executor schedules a drain on the pool, which runs the queued tasks until
+ * the queue is empty. A drain never waits for the session lock. If another
+ * thread holds it, the drain is handed over to that thread as a pending access
+ * task, which it runs when it releases the lock. A drain releases the lock and
+ * gives its thread up after {@link #BATCH_SIZE} tasks so that a busy session
+ * doesn't starve the others. Once the pool no longer accepts tasks, the
+ * remaining ones are handed over to the session's pending access queue.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class SessionSerialExecutor implements Executor {
+
+    /**
+     * Maximum number of tasks run by a drain before it's rescheduled.
+     */
+    static final int BATCH_SIZE = 64;
+
+    private final VaadinSession session;
+
+    private final Executor pool;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of queued tasks including the running one. A task is added to
+     * the queue before it's counted, so a drain which sees a positive count
+     * always finds a task to run.
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Creates a new executor.
+     *
+     * @param session
+     *            the session whose lock is held while running the tasks
+     * @param pool
+     *            the pool running the tasks
+     */
+    SessionSerialExecutor(VaadinSession session, Executor pool) {
+        this.session = session;
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (depth.getAndIncrement() == 0) {
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                tasks.remove(task);
+                if (depth.decrementAndGet() > 0) {
+                    // Tasks submitted meanwhile expected this drain
+                    handOver();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tasks waiting or running.
+     *
+     * @return the queue depth
+     */
+    int getQueueDepth() {
+        return depth.get();
+    }
+
+    private void drain() {
+        Lock lock = session.getLockInstance();
+        if (!lock.tryLock()) {
+            handOver();
+            return;
+        }
+        Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
+                .setCurrent(session);
+        Error error = null;
+        boolean more;
+        try {
+            more = runTasks();
+        } catch (Error e) {
+            error = e;
+            more = depth.decrementAndGet() > 0;
+        } finally {
+            // Runs the regular pending access tasks and pushes
+            session.unlock();
+            CurrentInstance.restoreInstances(oldInstances);
+        }
+        // Rescheduled only once the lock is released, a new drain would
+        // otherwise be handed over to this thread
+        if (more) {
+            schedule();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Runs a batch of tasks on the thread holding the session lock, when the
+     * lock was held by another thread or the pool no longer runs tasks.
+     */
+    private void runHandedOver() {
+        boolean more;
+        try {
+            more = runTasks();
+        } catch (Error e) {
+            if (depth.decrementAndGet() > 0) {
+                schedule();
+            }
+            throw e;
+        }
+        if (more) {
+            schedule();
+        }
+    }
+
+    private void handOver() {
+        // Run by the lock holder when it releases the lock, or right away if
+        // it has just released it
+        session.getPendingAccessQueue()
+                .add(new FutureAccess(session, this::runHandedOver));
+        session.getService().ensureAccessQueuePurged(session);
+    }
+
+    private void schedule() {
+        try {
+            pool.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The pool has been shut down, the queued tasks would never run
+            handOver();
+        }
+    }
+
+    /**
+     * Runs a batch of tasks. A task throwing an {@link Error} is not counted
+     * down, the caller does it when deciding whether tasks remain.
+     *
+     * @return {@code true} if more tasks are queued
+     */
+    private boolean runTasks() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Runnable task = tasks.poll();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                getLogger().error("Session task failed", e);
+            }
+            if (depth.decrementAndGet() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(SessionSerialExecutor.class);
+    }
+}
@@ -21,15 +21,23 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.util.ClassUtils;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.socket.server.standard.ServerEndpointExporter;
 
 import com.vaadin.flow.server.Constants;
@@ -80,16 +88,84 @@ public class SpringBootAutoConfiguration {
                     VaadinMVCWebAppInitializer
                             .makeContextRelative(mapping.replace("*", "")));
         }
+        SpringServlet servlet = new SpringServlet(context, rootMapping);
+        if (configurationProperties.getWarmUp().isEnabled()) {
+            servlet.setWarmUp(new RouteTargetWarmUp(servlet,
+                    configurationProperties.getWarmUp().getIterations()));
+        }
         ServletRegistrationBean<SpringServlet> registration = new ServletRegistrationBean<>(
-                new SpringServlet(context, rootMapping), mapping);
+                servlet, mapping);
         registration.setInitParameters(initParameters);
         registration
                 .setAsyncSupported(configurationProperties.isAsyncSupported());
         registration.setName(
                 ClassUtils.getShortNameAsProperty(SpringServlet.class));
+        if (configurationProperties.getWarmUp().isEnabled()
+                || (rootMapping
+                        && configurationProperties.isDirectRootDispatch())) {
+            // The root dispatch filter calls the servlet directly, which
+            // doesn't initialize it
+            registration.setLoadOnStartup(1);
+        }
         return registration;
     }
 
+    /**
+     * Creates the registry of the live Vaadin sessions.
+     *
+     * @return the session registry
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public VaadinSessionRegistry vaadinSessionRegistry() {
+        return new VaadinSessionRegistry();
+    }
+
+    /**
+     * Creates the cache of the pre-rendered pages of the stateless routes.
+     *
+     * @return the stateless route cache
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public StatelessRouteCache statelessRouteCache() {
+        return new StatelessRouteCache();
+    }
+
+    /**
+     * Creates a filter which dispatches Vaadin internal requests directly to
+     * the Vaadin servlet when it is mapped to the root, without the forwarding
+     * hop through the {@link DispatcherServlet}.
+     *
+     * @return the filter registration
+     */
+    @Bean
+    @Conditional(RootMappedCondition.class)
+    @ConditionalOnProperty(prefix = "vaadin", name = "direct-root-dispatch", havingValue = "true")
+    public FilterRegistrationBean<VaadinRootDispatchFilter> vaadinRootDispatchFilter() {
+        FilterRegistrationBean<VaadinRootDispatchFilter> registration = new FilterRegistrationBean<>(
+                new VaadinRootDispatchFilter(
+                        servletRegistrationBean().getServlet()));
+        // intercept only the requests which would be forwarded
+        registration.addServletNames(
+                DispatcherServletAutoConfiguration.DEFAULT_DISPATCHER_SERVLET_BEAN_NAME);
+        registration.setAsyncSupported(
+                configurationProperties.isAsyncSupported());
+        return registration;
+    }
+
+    /**
+     * Makes the embedded Tomcat handle requests on virtual threads.
+     *
+     * @return the Tomcat customizer
+     */
+    @Bean
+    @ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+    @ConditionalOnProperty(prefix = "vaadin", name = "virtual-threads", havingValue = "true")
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> vaadinVirtualThreadsCustomizer() {
+        return new VirtualThreadsCustomizer();
+    }
+
     /**
      * Deploys JSR-356 websocket endpoints when Atmosphere is available.
      *
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.Serializable;
+
+import com.vaadin.flow.server.Constants;
+
+/**
+ * Constants used by the Vaadin Spring integration in addition to the Flow
+ * {@link Constants}.
+ * <p>
+ * The parameters may be given as servlet init parameters or as Spring
+ * environment properties prefixed with {@literal "vaadin."}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public final class SpringConstants implements Serializable {
+
+    /**
+     * Enables shared (non exclusive) reads of existing beans in the Vaadin
+     * scopes. By default every scope access takes the {@code VaadinSession}
+     * lock.
+     */
+    public static final String SCOPE_SHARED_READS = "scopeSharedReads";
+
+    /**
+     * Maximum time in milliseconds to wait for the {@code VaadinSession} lock
+     * when a Vaadin scope is accessed from a thread which doesn't hold the
+     * lock. A negative value (the default) means waiting without a timeout.
+     * The timeouts are reported by the {@code vaadin} actuator endpoint and
+     * as the {@code vaadin.scope.lock.timeouts} counter when request metrics
+     * are enabled.
+     */
+    public static final String SCOPE_LOCK_TIMEOUT = "scopeLockTimeout";
+
+    /**
+     * Maximum number of translations per locale cached for the Spring managed
+     * {@code I18NProvider}. Only translations without parameters are cached.
+     * The cache is disabled if the value is not positive (the default).
+     */
+    public static final String I18N_CACHE_SIZE = "i18nCacheSize";
+
+    /**
+     * Comma separated resource bundle base names whose keys are translated
+     * and cached at startup if the translation cache is enabled.
+     */
+    public static final String I18N_CACHE_WARM_UP_BUNDLES = "i18nCacheWarmUpBundles";
+
+    /**
+     * Maximum number of entries in the cache of static resource lookups in
+     * the Spring Boot static locations. The cache is used only in production
+     * mode and is disabled if the value is not positive. The default is
+     * {@value #DEFAULT_STATIC_RESOURCE_CACHE_SIZE}.
+     */
+    public static final String STATIC_RESOURCE_CACHE_SIZE = "staticResourceCacheSize";
+
+    /**
+     * Default value of {@link #STATIC_RESOURCE_CACHE_SIZE}.
+     */
+    public static final int DEFAULT_STATIC_RESOURCE_CACHE_SIZE = 1000;
+
+    /**
+     * Enables indexing of the Spring Boot static locations at startup. In
+     * development mode the file system directories of the locations are
+     * watched and the index is updated on changes.
+     */
+    public static final String STATIC_RESOURCE_INDEX = "staticResourceIndex";
+
+    /**
+     * Enables serving the static resources resolved to plain files with
+     * strong {@literal ETag}s, conditional and range request support. Large
+     * files are sent with the Tomcat sendfile support when it is available.
+     */
+    public static final String STATIC_RESOURCE_FILE_SERVING = "staticResourceFileServing";
+
+    /**
+     * Enables serving text based static resources gzip compressed from an
+     * off-heap cache filled in the background. The indexed resources (see
+     * {@link #STATIC_RESOURCE_INDEX}) are compressed at startup, other
+     * resources when they are first requested.
+     */
+    public static final String STATIC_RESOURCE_PRECOMPRESSION = "staticResourcePrecompression";
+
+    /**
+     * The gzip compression level (1-9) of the precompressed static resources.
+     * The default is {@value #DEFAULT_STATIC_RESOURCE_COMPRESSION_LEVEL}.
+     */
+    public static final String STATIC_RESOURCE_COMPRESSION_LEVEL = "staticResourceCompressionLevel";
+
+    /**
+     * Default value of {@link #STATIC_RESOURCE_COMPRESSION_LEVEL}.
+     */
+    public static final int DEFAULT_STATIC_RESOURCE_COMPRESSION_LEVEL = 9;
+
+    /**
+     * Maximum total size in bytes of the precompressed static resources. The
+     * default is {@value #DEFAULT_STATIC_RESOURCE_COMPRESSION_CACHE_SIZE}.
+     */
+    public static final String STATIC_RESOURCE_COMPRESSION_CACHE_SIZE = "staticResourceCompressionCacheSize";
+
+    /**
+     * Default value of {@link #STATIC_RESOURCE_COMPRESSION_CACHE_SIZE}.
+     */
+    public static final long DEFAULT_STATIC_RESOURCE_COMPRESSION_CACHE_SIZE = 32L
+            * 1024 * 1024;
+
+    /**
+     * Maximum total size in bytes of the off-heap cache of static resource
+     * contents read from jar files. The least recently used contents are
+     * evicted when the cache is full. The cache is disabled if the value is
+     * not positive (the default).
+     */
+    public static final String STATIC_RESOURCE_BYTES_CACHE_SIZE = "staticResourceBytesCacheSize";
+
+    /**
+     * Enables recording the latency of the requests handled by the Vaadin
+     * servlet in the Micrometer {@code MeterRegistry} of the application
+     * context, if there is one. The hits and misses of the static resource,
+     * resource content and translation caches are reported as
+     * {@code vaadin.cache.gets} in the same registry. Enabled by default.
+     */
+    public static final String REQUEST_METRICS = "requestMetrics";
+
+    /**
+     * Maximum number of live Vaadin sessions on this node. Requests which
+     * would create a new session beyond the limit are handled according to
+     * {@link #SESSION_LIMIT_POLICY}. There is no limit if the value is not
+     * positive (the default).
+     */
+    public static final String SESSION_LIMIT = "sessionLimit";
+
+    /**
+     * Maximum percentage of the heap in use after the last garbage
+     * collection for new Vaadin sessions to be created. Requests which would
+     * create a new session beyond the limit are handled according to
+     * {@link #SESSION_LIMIT_POLICY}. There is no limit if the value is not
+     * positive (the default).
+     */
+    public static final String SESSION_HEAP_LIMIT = "sessionHeapLimit";
+
+    /**
+     * What to do when a session limit is reached: {@value #SESSION_LIMIT_REJECT}
+     * (the default) responds with {@literal 503 Service Unavailable} and a
+     * {@literal Retry-After} header instead of creating a session,
+     * {@value #SESSION_LIMIT_EVICT} first invalidates the least recently
+     * active idle sessions (see {@link #SESSION_EVICTION_IDLE_TIME}) and
+     * rejects only if that doesn't free enough capacity.
+     */
+    public static final String SESSION_LIMIT_POLICY = "sessionLimitPolicy";
+
+    /**
+     * Value of {@link #SESSION_LIMIT_POLICY} rejecting new sessions.
+     */
+    public static final String SESSION_LIMIT_REJECT = "reject";
+
+    /**
+     * Value of {@link #SESSION_LIMIT_POLICY} evicting idle sessions.
+     */
+    public static final String SESSION_LIMIT_EVICT = "evict";
+
+    /**
+     * Time in seconds since the last request after which a session may be
+     * evicted when a session limit is reached. A heartbeat is the only
+     * request an idle open browser tab makes, so when heartbeats are enabled
+     * the value is at least {@value #SESSION_EVICTION_IDLE_HEARTBEATS} times
+     * the longest heartbeat interval plus
+     * {@value #PROVISIONAL_SESSION_GRACE_TIME} seconds, which is also the
+     * default. The default is {@value #DEFAULT_SESSION_EVICTION_IDLE_TIME}
+     * when heartbeats are disabled.
+     */
+    public static final String SESSION_EVICTION_IDLE_TIME = "sessionEvictionIdleTime";
+
+    /**
+     * Number of heartbeat intervals in the minimum value of
+     * {@link #SESSION_EVICTION_IDLE_TIME}.
+     */
+    public static final int SESSION_EVICTION_IDLE_HEARTBEATS = 3;
+
+    /**
+     * Default value of {@link #SESSION_EVICTION_IDLE_TIME} when heartbeats
+     * are disabled.
+     */
+    public static final int DEFAULT_SESSION_EVICTION_IDLE_TIME = 1800;
+
+    /**
+     * Time in seconds after which a Vaadin session created by a bootstrap
+     * request is closed if the client hasn't made another request in the
+     * session, like clients not keeping cookies or not running the client
+     * engine do. The HTTP session is invalidated only if it holds nothing
+     * else. The value is raised to the heartbeat interval plus
+     * {@value #PROVISIONAL_SESSION_GRACE_TIME} seconds if it's lower, so that
+     * idle browsers confirm their session with a heartbeat in time. Sessions
+     * are not tracked if the value is not positive (the default) or if
+     * heartbeats are disabled.
+     */
+    public static final String PROVISIONAL_SESSION_TIMEOUT = "provisionalSessionTimeout";
+
+    /**
+     * Seconds added to the heartbeat interval for the minimum value of
+     * {@link #PROVISIONAL_SESSION_TIMEOUT}.
+     */
+    public static final int PROVISIONAL_SESSION_GRACE_TIME = 30;
+
+    /**
+     * Concurrency limits of the requests handled by the Vaadin servlet, as
+     * comma separated {@code <type>=<limit>} pairs where the type is a
+     * request type metrics tag, e.g.
+     * {@code uidl=32,bootstrap=16,heartbeat=8,static-resource=64}. Each type
+     * has its own budget and types without a limit are not limited. Requests
+     * beyond the limit wait in a queue (see
+     * {@link #ADMISSION_CONTROL_QUEUE_SIZE} and
+     * {@link #ADMISSION_CONTROL_QUEUE_TIMEOUT}) and are rejected with
+     * {@literal 503 Service Unavailable} if they can't be admitted. Admission
+     * control is disabled if there are no limits (the default).
+     */
+    public static final String ADMISSION_CONTROL_LIMITS = "admissionControlLimits";
+
+    /**
+     * Maximum number of requests of each type waiting for admission. The
+     * default is {@value #DEFAULT_ADMISSION_CONTROL_QUEUE_SIZE}.
+     */
+    public static final String ADMISSION_CONTROL_QUEUE_SIZE = "admissionControlQueueSize";
+
+    /**
+     * Default value of {@link #ADMISSION_CONTROL_QUEUE_SIZE}.
+     */
+    public static final int DEFAULT_ADMISSION_CONTROL_QUEUE_SIZE = 50;
+
+    /**
+     * Maximum time in milliseconds a request waits for admission. The default
+     * is {@value #DEFAULT_ADMISSION_CONTROL_QUEUE_TIMEOUT}.
+     */
+    public static final String ADMISSION_CONTROL_QUEUE_TIMEOUT = "admissionControlQueueTimeout";
+
+    /**
+     * Default value of {@link #ADMISSION_CONTROL_QUEUE_TIMEOUT}.
+     */
+    public static final long DEFAULT_ADMISSION_CONTROL_QUEUE_TIMEOUT = 500;
+
+    /**
+     * Enables handling the heartbeat requests of a session whose lock is held
+     * by another request without waiting for the lock: the heartbeat is
+     * recorded when the lock is released and the response is sent right away.
+     */
+    public static final String HEARTBEAT_FAST_PATH = "heartbeatFastPath";
+
+    /**
+     * Enables adapting the heartbeat interval sent to new clients to the load
+     * of the node: the interval grows from the configured heartbeat interval
+     * towards {@link #ADAPTIVE_HEARTBEAT_MAX_INTERVAL} when the system load
+     * average per processor or the number of requests in progress relative to
+     * {@link #ADAPTIVE_HEARTBEAT_CONCURRENCY} exceeds one half, and shrinks
+     * back when the load drops. UIs are closed only after missing heartbeats
+     * at the maximum interval.
+     */
+    public static final String ADAPTIVE_HEARTBEAT = "adaptiveHeartbeat";
+
+    /**
+     * Heartbeat interval in seconds under full load when
+     * {@link #ADAPTIVE_HEARTBEAT} is enabled. The default is four times the
+     * heartbeat interval.
+     */
+    public static final String ADAPTIVE_HEARTBEAT_MAX_INTERVAL = "adaptiveHeartbeatMaxInterval";
+
+    /**
+     * Number of requests in progress in the Vaadin servlet considered as full
+     * load when {@link #ADAPTIVE_HEARTBEAT} is enabled. The default is
+     * {@value #DEFAULT_ADAPTIVE_HEARTBEAT_CONCURRENCY}, the default number of
+     * request threads of the embedded Tomcat.
+     */
+    public static final String ADAPTIVE_HEARTBEAT_CONCURRENCY = "adaptiveHeartbeatConcurrency";
+
+    /**
+     * Default value of {@link #ADAPTIVE_HEARTBEAT_CONCURRENCY}.
+     */
+    public static final int DEFAULT_ADAPTIVE_HEARTBEAT_CONCURRENCY = 200;
+
+    /**
+     * Enables running the access tasks of each session, including the session
+     * destruction, one at a time in submission order on a serial executor
+     * owned by the session instead of on the threads calling
+     * {@code UI.access}. Tasks submitted by a thread holding the session lock
+     * still run when that thread releases the lock. The queue depth of a
+     * session is available from
+     * {@link SpringVaadinSession#getAccessQueueDepth()}.
+     */
+    public static final String SERIAL_SESSION_ACCESS = "serialSessionAccess";
+
+    /**
+     * Number of threads shared by the serial executors of the sessions when
+     * {@link #SERIAL_SESSION_ACCESS} is enabled. The default is the number of
+     * available processors.
+     */
+    public static final String SERIAL_SESSION_ACCESS_THREADS = "serialSessionAccessThreads";
+
+    private SpringConstants() {
+        // prevent instantiation constants class only
+    }
+}
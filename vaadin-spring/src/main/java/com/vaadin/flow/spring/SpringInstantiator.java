@@ -15,17 +15,24 @@
  */
 package com.vaadin.flow.spring;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ApplicationContext;
 
 import com.vaadin.flow.di.DefaultInstantiator;
+import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.i18n.I18NProvider;
 import com.vaadin.flow.internal.UsageStatistics;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.spring.i18n.CachingI18NProvider;
 
 /**
  * Default Spring instantiator that is used if no other instantiator has been
@@ -37,8 +44,34 @@ import com.vaadin.flow.server.VaadinServiceInitListener;
 public class SpringInstantiator extends DefaultInstantiator {
 
     private ApplicationContext context;
+    private VaadinService service;
     private AtomicBoolean loggingEnabled = new AtomicBoolean(true);
 
+    /**
+     * The resolved I18N provider. Cleared when the context is refreshed.
+     */
+    private volatile I18NProvider i18nProvider;
+
+    /**
+     * Bean names per requested type. Cleared when the context is refreshed.
+     */
+    private final Map<Class<?>, String[]> beanNames = new ConcurrentHashMap<>();
+
+    /**
+     * Factories for types which are not beans. Cleared when the context is
+     * refreshed.
+     */
+    private final Map<Class<?>, Optional<InstanceFactory>> instanceFactories = new ConcurrentHashMap<>();
+
+    /**
+     * The startup date of the context when the caches were filled. A refresh
+     * changes the startup date. It's compared on each lookup instead of
+     * listening to the refresh events, since a listener added to the context
+     * would keep the instantiator and its service alive as long as the
+     * context.
+     */
+    private volatile long contextStartupDate;
+
     /**
      * Creates a new spring instantiator instance.
      *
@@ -50,7 +83,9 @@ public class SpringInstantiator extends DefaultInstantiator {
     public SpringInstantiator(VaadinService service,
             ApplicationContext context) {
         super(service);
+        this.service = service;
         this.context = context;
+        contextStartupDate = context.getStartupDate();
 
         UsageStatistics.markAsUsed("flow/SpringInstantiator", null);
     }
@@ -63,11 +98,31 @@ public class SpringInstantiator extends DefaultInstantiator {
         return Stream.concat(super.getServiceInitListeners(), springListeners);
     }
 
+    @Override
+    public boolean init(VaadinService service) {
+        boolean initialized = super.init(service);
+        if (initialized && !getConfigurationProperty(
+                SpringConstants.I18N_CACHE_WARM_UP_BUNDLES, "").isEmpty()) {
+            // resolves the provider and warms its cache up
+            getI18NProvider();
+        }
+        return initialized;
+    }
+
     @Override
     public I18NProvider getI18NProvider() {
-        int beansCount = context.getBeanNamesForType(I18NProvider.class).length;
+        clearCachesIfRefreshed();
+        I18NProvider provider = i18nProvider;
+        if (provider != null) {
+            return provider;
+        }
+        String[] names = context.getBeanNamesForType(I18NProvider.class);
+        int beansCount = names.length;
         if (beansCount == 1) {
-            return context.getBean(I18NProvider.class);
+            provider = context.getBean(names[0], I18NProvider.class);
+            if (!context.isSingleton(names[0])) {
+                return provider;
+            }
         } else {
             if (loggingEnabled.compareAndSet(true, false)) {
                 LoggerFactory.getLogger(SpringInstantiator.class.getName())
@@ -75,19 +130,72 @@ public class SpringInstantiator extends DefaultInstantiator {
                                 + "falling back to the default behavior",
                                 I18NProvider.class.getSimpleName(), beansCount);
             }
-            return super.getI18NProvider();
+            provider = super.getI18NProvider();
         }
+        if (provider != null) {
+            provider = withCache(provider);
+            i18nProvider = provider;
+        }
+        return provider;
     }
 
     @Override
     public <T> T getOrCreate(Class<T> type) {
-        if (context.getBeanNamesForType(type).length == 1) {
-            return context.getBean(type);
-        } else if (context.getBeanNamesForType(type).length > 1) {
+        clearCachesIfRefreshed();
+        String[] names = beanNames.computeIfAbsent(type,
+                context::getBeanNamesForType);
+        if (names.length == 1) {
+            return context.getBean(names[0], type);
+        } else if (names.length > 1) {
             throw new IllegalStateException("Unable to autowire existing beans, there are more " +
                     "than 1 autowiring candidates");
         }
         // If there is no bean, try to instantiate one
-        return context.getAutowireCapableBeanFactory().createBean(type);
+        AutowireCapableBeanFactory beanFactory = context
+                .getAutowireCapableBeanFactory();
+        Optional<InstanceFactory> factory = instanceFactories.computeIfAbsent(
+                type, key -> Optional
+                        .ofNullable(InstanceFactory.create(key, beanFactory)));
+        if (factory.isPresent()) {
+            return type.cast(factory.get().create());
+        }
+        return beanFactory.createBean(type);
+    }
+
+    private void clearCachesIfRefreshed() {
+        long startupDate = context.getStartupDate();
+        if (startupDate != contextStartupDate) {
+            contextStartupDate = startupDate;
+            beanNames.clear();
+            instanceFactories.clear();
+            i18nProvider = null;
+        }
+    }
+
+    private I18NProvider withCache(I18NProvider provider) {
+        int cacheSize = Integer.parseInt(
+                getConfigurationProperty(SpringConstants.I18N_CACHE_SIZE, "0"));
+        if (cacheSize <= 0) {
+            return provider;
+        }
+        CachingI18NProvider cachingProvider = new CachingI18NProvider(provider,
+                cacheSize);
+        for (String bundle : getConfigurationProperty(
+                SpringConstants.I18N_CACHE_WARM_UP_BUNDLES, "").split(",")) {
+            if (!bundle.trim().isEmpty()) {
+                cachingProvider.warmUp(bundle.trim());
+            }
+        }
+        return cachingProvider;
+    }
+
+    private String getConfigurationProperty(String name, String defaultValue) {
+        DeploymentConfiguration configuration = service == null ? null
+                : service.getDeploymentConfiguration();
+        if (configuration == null) {
+            return defaultValue;
+        }
+        return configuration.getApplicationOrSystemProperty(name,
+                defaultValue, Function.identity());
     }
 }
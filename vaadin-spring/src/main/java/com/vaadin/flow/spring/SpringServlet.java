@@ -18,6 +18,7 @@ package com.vaadin.flow.spring;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.servlet.ServletException;
@@ -30,6 +31,7 @@ import org.springframework.core.env.Environment;
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.server.Constants;
 import com.vaadin.flow.server.ServiceException;
+import com.vaadin.flow.server.StaticFileHandler;
 import com.vaadin.flow.server.VaadinServlet;
 import com.vaadin.flow.server.VaadinServletService;
 
@@ -46,6 +48,9 @@ public class SpringServlet extends VaadinServlet {
             Constants.SERVLET_PARAMETER_DISABLE_XSRF_PROTECTION,
             Constants.SERVLET_PARAMETER_CLOSE_IDLE_SESSIONS,
             Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+            SpringConstants.ADAPTIVE_HEARTBEAT,
+            SpringConstants.ADAPTIVE_HEARTBEAT_MAX_INTERVAL,
+            SpringConstants.ADAPTIVE_HEARTBEAT_CONCURRENCY,
             Constants.SERVLET_PARAMETER_SEND_URLS_AS_PARAMETERS,
             Constants.SERVLET_PARAMETER_PUSH_MODE,
             Constants.SERVLET_PARAMETER_PUSH_URL,
@@ -57,11 +62,48 @@ public class SpringServlet extends VaadinServlet {
             Constants.USE_ORIGINAL_FRONTEND_RESOURCES,
             Constants.FRONTEND_URL_ES5, Constants.FRONTEND_URL_ES6,
             Constants.I18N_PROVIDER,
-            Constants.DISABLE_AUTOMATIC_SERVLET_REGISTRATION);
+            Constants.DISABLE_AUTOMATIC_SERVLET_REGISTRATION,
+            SpringConstants.SCOPE_SHARED_READS,
+            SpringConstants.SCOPE_LOCK_TIMEOUT,
+            SpringConstants.I18N_CACHE_SIZE,
+            SpringConstants.I18N_CACHE_WARM_UP_BUNDLES,
+            SpringConstants.STATIC_RESOURCE_CACHE_SIZE,
+            SpringConstants.STATIC_RESOURCE_INDEX,
+            SpringConstants.STATIC_RESOURCE_FILE_SERVING,
+            SpringConstants.STATIC_RESOURCE_PRECOMPRESSION,
+            SpringConstants.STATIC_RESOURCE_COMPRESSION_LEVEL,
+            SpringConstants.STATIC_RESOURCE_COMPRESSION_CACHE_SIZE,
+            SpringConstants.STATIC_RESOURCE_BYTES_CACHE_SIZE,
+            SpringConstants.REQUEST_METRICS, SpringConstants.SESSION_LIMIT,
+            SpringConstants.SESSION_HEAP_LIMIT,
+            SpringConstants.SESSION_LIMIT_POLICY,
+            SpringConstants.SESSION_EVICTION_IDLE_TIME,
+            SpringConstants.PROVISIONAL_SESSION_TIMEOUT,
+            SpringConstants.ADMISSION_CONTROL_LIMITS,
+            SpringConstants.ADMISSION_CONTROL_QUEUE_SIZE,
+            SpringConstants.ADMISSION_CONTROL_QUEUE_TIMEOUT,
+            SpringConstants.HEARTBEAT_FAST_PATH,
+            SpringConstants.SERIAL_SESSION_ACCESS,
+            SpringConstants.SERIAL_SESSION_ACCESS_THREADS);
+
+    private static final String MICROMETER_REGISTRY = "io.micrometer.core.instrument.MeterRegistry";
+
+    private static final String STATIC_REQUEST_ATTRIBUTE = SpringServlet.class
+            .getName() + ".staticRequest";
 
     private final ApplicationContext context;
     private final boolean forwardingEnforced;
 
+    private transient MicrometerRequestMetrics requestMetrics;
+
+    private transient AdmissionController admissionController;
+
+    private transient StaticFileHandler staticFileHandler;
+
+    private transient AdaptiveHeartbeat adaptiveHeartbeat;
+
+    private transient RouteTargetWarmUp warmUp;
+
     /**
      * Creates a new Vaadin servlet instance with the application
      * {@code context} provided.
@@ -78,7 +120,70 @@ public class SpringServlet extends VaadinServlet {
     @Override
     protected void service(HttpServletRequest request,
             HttpServletResponse response) throws ServletException, IOException {
-        super.service(wrapRequest(request), response);
+        HttpServletRequest wrapped = wrapRequest(request);
+        if (adaptiveHeartbeat == null) {
+            serviceAdmitted(wrapped, response);
+            return;
+        }
+        adaptiveHeartbeat.requestStarted();
+        try {
+            serviceAdmitted(wrapped, response);
+        } finally {
+            adaptiveHeartbeat.requestEnded();
+        }
+    }
+
+    private void serviceAdmitted(HttpServletRequest wrapped,
+            HttpServletResponse response) throws ServletException, IOException {
+        if (admissionController == null) {
+            serviceMeasured(wrapped, response);
+            return;
+        }
+        VaadinRequestType type = staticFileHandler != null
+                && staticFileHandler.isStaticResourceRequest(wrapped)
+                        ? VaadinRequestType.STATIC_RESOURCE
+                        : VaadinRequestType.of(wrapped);
+        if (!admissionController.admit(type)) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            return;
+        }
+        try {
+            serviceMeasured(wrapped, response);
+        } finally {
+            admissionController.release(type);
+        }
+    }
+
+    private void serviceMeasured(HttpServletRequest wrapped,
+            HttpServletResponse response) throws ServletException, IOException {
+        if (requestMetrics == null) {
+            super.service(wrapped, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            super.service(wrapped, response);
+            failed = false;
+        } finally {
+            VaadinRequestType type = wrapped
+                    .getAttribute(STATIC_REQUEST_ATTRIBUTE) != null
+                            ? VaadinRequestType.STATIC_RESOURCE
+                            : VaadinRequestType.of(wrapped);
+            requestMetrics.record(wrapped, response, type, failed,
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected boolean serveStaticOrWebJarRequest(HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        boolean served = super.serveStaticOrWebJarRequest(request, response);
+        if (served && requestMetrics != null) {
+            request.setAttribute(STATIC_REQUEST_ATTRIBUTE, Boolean.TRUE);
+        }
+        return served;
     }
 
     @Override
@@ -88,29 +193,153 @@ public class SpringServlet extends VaadinServlet {
         SpringVaadinServletService service = new SpringVaadinServletService(
                 this, deploymentConfiguration, context);
         service.init();
+        if (deploymentConfiguration.getApplicationOrSystemProperty(
+                SpringConstants.REQUEST_METRICS, true, Boolean::parseBoolean)
+                && isClassnameAvailable(MICROMETER_REGISTRY)) {
+            requestMetrics = MicrometerRequestMetrics.create(context,
+                    getServletContext());
+        }
+        if (requestMetrics != null) {
+            requestMetrics.bind(service);
+        }
+        admissionController = createAdmissionController(
+                deploymentConfiguration);
+        if (admissionController != null && requestMetrics != null) {
+            requestMetrics.bind(admissionController);
+        }
         return service;
     }
 
+    @Override
+    protected StaticFileHandler createStaticFileHandler(
+            VaadinServletService servletService) {
+        DeploymentConfiguration configuration = servletService
+                .getDeploymentConfiguration();
+        boolean fileServing = configuration.getApplicationOrSystemProperty(
+                SpringConstants.STATIC_RESOURCE_FILE_SERVING, false,
+                Boolean::parseBoolean);
+        PrecompressedResourceCache precompressed = null;
+        if (configuration.getApplicationOrSystemProperty(
+                SpringConstants.STATIC_RESOURCE_PRECOMPRESSION, false,
+                Boolean::parseBoolean)) {
+            precompressed = createPrecompressedResourceCache(servletService);
+        }
+        if (fileServing || precompressed != null) {
+            staticFileHandler = new SpringStaticFileServer(servletService,
+                    configuration.getApplicationOrSystemProperty(
+                            SpringConstants.STATIC_RESOURCE_CACHE_SIZE,
+                            SpringConstants.DEFAULT_STATIC_RESOURCE_CACHE_SIZE,
+                            Integer::parseInt),
+                    fileServing, precompressed);
+        } else {
+            staticFileHandler = super.createStaticFileHandler(servletService);
+        }
+        return staticFileHandler;
+    }
+
+    private static AdmissionController createAdmissionController(
+            DeploymentConfiguration configuration) {
+        Map<VaadinRequestType, Integer> limits = AdmissionController
+                .parseLimits(configuration.getApplicationOrSystemProperty(
+                        SpringConstants.ADMISSION_CONTROL_LIMITS, "",
+                        String::toString));
+        if (limits.isEmpty()) {
+            return null;
+        }
+        return new AdmissionController(limits,
+                configuration.getApplicationOrSystemProperty(
+                        SpringConstants.ADMISSION_CONTROL_QUEUE_SIZE,
+                        SpringConstants.DEFAULT_ADMISSION_CONTROL_QUEUE_SIZE,
+                        Integer::parseInt),
+                configuration.getApplicationOrSystemProperty(
+                        SpringConstants.ADMISSION_CONTROL_QUEUE_TIMEOUT,
+                        SpringConstants.DEFAULT_ADMISSION_CONTROL_QUEUE_TIMEOUT,
+                        Long::parseLong));
+    }
+
+    @Override
+    protected void servletInitialized() throws ServletException {
+        super.servletInitialized();
+        if (warmUp != null) {
+            // Runs before the servlet serves any request, the container
+            // holds the requests until the initialization is done
+            warmUp.run();
+        }
+    }
+
+    /**
+     * Sets the navigation targets warm-up to run when the servlet has been
+     * initialized.
+     *
+     * @param warmUp
+     *            the warm-up, or {@code null} for none
+     */
+    void setWarmUp(RouteTargetWarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
     @Override
     protected DeploymentConfiguration createDeploymentConfiguration(
             Properties initParameters) {
         Properties properties = new Properties(initParameters);
         config(properties);
+        if (Boolean.parseBoolean(
+                properties.getProperty(SpringConstants.ADAPTIVE_HEARTBEAT))) {
+            AdaptiveHeartbeatDeploymentConfiguration configuration = new AdaptiveHeartbeatDeploymentConfiguration(
+                    getClass(), properties);
+            adaptiveHeartbeat = configuration.getAdaptiveHeartbeat();
+            return configuration;
+        }
         return super.createDeploymentConfiguration(properties);
     }
 
+    private PrecompressedResourceCache createPrecompressedResourceCache(
+            VaadinServletService servletService) {
+        DeploymentConfiguration configuration = servletService
+                .getDeploymentConfiguration();
+        PrecompressedResourceCache cache = new PrecompressedResourceCache(
+                configuration.getApplicationOrSystemProperty(
+                        SpringConstants.STATIC_RESOURCE_COMPRESSION_LEVEL,
+                        SpringConstants.DEFAULT_STATIC_RESOURCE_COMPRESSION_LEVEL,
+                        Integer::parseInt),
+                configuration.getApplicationOrSystemProperty(
+                        SpringConstants.STATIC_RESOURCE_COMPRESSION_CACHE_SIZE,
+                        SpringConstants.DEFAULT_STATIC_RESOURCE_COMPRESSION_CACHE_SIZE,
+                        Long::parseLong),
+                servletService::getStaticResource);
+        if (servletService instanceof SpringVaadinServletService) {
+            cache.compressAll(((SpringVaadinServletService) servletService)
+                    .getIndexedResources());
+        }
+        servletService.addServiceDestroyListener(event -> cache.close());
+        return cache;
+    }
+
     private HttpServletRequest wrapRequest(HttpServletRequest request) {
         if (forwardingEnforced && request.getPathInfo() == null) {
             /*
              * We need to apply a workaround in case of forwarding
              *
              * see https://jira.spring.io/browse/SPR-17457
+             *
+             * The wrapper is allocated per forwarded request, requests
+             * with path info are passed through as is.
              */
             return new ForwardingRequestWrapper(request);
         }
         return request;
     }
 
+    private static boolean isClassnameAvailable(String clazzName) {
+        try {
+            Class.forName(clazzName, false,
+                    SpringServlet.class.getClassLoader());
+        } catch (LinkageError | ClassNotFoundException e) {
+            return false;
+        }
+        return true;
+    }
+
     private void config(Properties properties) {
         setProperties(PROPERTY_NAMES, properties);
     }
@@ -0,0 +1,468 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+import com.vaadin.flow.server.StaticFileServer;
+import com.vaadin.flow.server.VaadinServletService;
+
+/**
+ * Static file handler which serves the resources resolved to plain files
+ * (file system and exploded classpath locations) directly from the file.
+ * <p>
+ * Large files are handed to the Tomcat sendfile support when the connector
+ * offers it, which writes them to the socket without copying. Otherwise the
+ * file is transferred to the servlet output stream, which still copies the
+ * content through a heap buffer.
+ * <p>
+ * A strong {@literal ETag} is computed once per file and revision, conditional
+ * requests are answered with {@literal 304} and single range requests with
+ * {@literal 206}. Fingerprinted paths (a content hash of at least 16 hex
+ * digits before the extension, e.g. {@code app.3f2a9c0d1b4e5f67.js}, or a GWT
+ * {@code <md5>.cache.js} file) get long-lived cache headers. Text based
+ * resources may in addition be served gzip compressed from a
+ * {@link PrecompressedResourceCache}. Other resources (e.g. jar entries or
+ * files with precompressed variants) are served by {@link StaticFileServer}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class SpringStaticFileServer extends StaticFileServer {
+
+    static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Files smaller than this are written directly, the container sendfile
+     * setup costs more than copying them.
+     */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final long FINGERPRINTED_CACHE_TIME = TimeUnit.DAYS
+            .toSeconds(365);
+
+    private static final long DEFAULT_CACHE_TIME = TimeUnit.HOURS.toSeconds(1);
+
+    /**
+     * Content hashes of bundlers are at least 16 hex digits (e.g. webpack's
+     * 20 digit {@code [contenthash]}). Shorter ones are too easily confused
+     * with e.g. version numbers or dates to be cached as immutable.
+     */
+    private static final Pattern FINGERPRINTED = Pattern.compile(
+            ".*(?:[.-][0-9a-fA-F]{16,}|/[0-9A-F]{32}\\.cache)\\.[^./]+$");
+
+    private final VaadinServletService servletService;
+
+    private final int maxEntries;
+
+    private final boolean fileServing;
+
+    private final transient PrecompressedResourceCache precompressed;
+
+    /**
+     * Served files keyed by the request path.
+     */
+    private final transient Map<String, FileEntry> entries = new ConcurrentHashMap<>();
+
+    private static final class FileEntry implements Serializable {
+
+        private final File file;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final String etag;
+
+        private FileEntry(File file, long lastModified, long length,
+                String etag) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.etag = etag;
+        }
+
+        private boolean isCurrent(File file) {
+            return this.file.equals(file)
+                    && lastModified == file.lastModified()
+                    && length == file.length();
+        }
+    }
+
+    /**
+     * Creates a new file server.
+     *
+     * @param servletService
+     *            the servlet service used to resolve the resources
+     * @param maxEntries
+     *            the maximum number of files whose {@literal ETag} is kept
+     * @param fileServing
+     *            whether resources resolved to plain files are served by this
+     *            handler
+     * @param precompressed
+     *            the cache of gzip compressed resources, may be {@code null}
+     */
+    SpringStaticFileServer(VaadinServletService servletService,
+            int maxEntries, boolean fileServing,
+            PrecompressedResourceCache precompressed) {
+        super(servletService);
+        this.servletService = servletService;
+        this.maxEntries = maxEntries;
+        this.fileServing = fileServing;
+        this.precompressed = precompressed;
+    }
+
+    @Override
+    public boolean serveStaticResource(HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return super.serveStaticResource(request, response);
+        }
+        String filename = getRequestFilename(request);
+        URL url = servletService.getStaticResource(filename);
+        if (url != null && precompressed != null
+                && PrecompressedResourceCache.isCompressible(filename)) {
+            response.setHeader("Vary", "Accept-Encoding");
+            if (request.getHeader("Range") == null && acceptsGzip(request)) {
+                PrecompressedResourceCache.Entry compressed = precompressed
+                        .get(filename, url);
+                if (compressed != null) {
+                    serveCompressed(request, response, filename, compressed);
+                    return true;
+                }
+            }
+        }
+        File file = fileServing ? toFile(url) : null;
+        if (file == null || hasPrecompressedVariant(file)) {
+            return super.serveStaticResource(request, response);
+        }
+        FileEntry entry = getEntry(filename, file);
+        response.setHeader("ETag", entry.etag);
+        response.setDateHeader("Last-Modified", entry.lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Cache-Control", getCacheControl(filename));
+        if (isNotModified(request, entry)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        long start = 0;
+        long end = entry.length - 1;
+        String range = request.getHeader("Range");
+        if (range != null && isRangeApplicable(request, entry)) {
+            long[] bounds = parseRange(range, entry.length);
+            if (bounds != null && bounds.length == 0) {
+                response.setHeader("Content-Range", "bytes */" + entry.length);
+                response.setStatus(
+                        HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return true;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-"
+                        + end + "/" + entry.length);
+            }
+        }
+        String contentType = request.getServletContext()
+                .getMimeType(filename);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("GET".equals(method)) {
+            write(request, response, entry.file, start, length);
+        }
+        return true;
+    }
+
+    private void serveCompressed(HttpServletRequest request,
+            HttpServletResponse response, String filename,
+            PrecompressedResourceCache.Entry compressed) throws IOException {
+        response.setHeader("ETag", compressed.getETag());
+        response.setHeader("Cache-Control", getCacheControl(filename));
+        if (matchesETag(request, compressed.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        String contentType = request.getServletContext()
+                .getMimeType(filename);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        ByteBuffer content = compressed.getContent();
+        response.setHeader("Content-Encoding", "gzip");
+        response.setContentLength(content.remaining());
+        if ("GET".equals(request.getMethod())) {
+            WritableByteChannel out = Channels
+                    .newChannel(response.getOutputStream());
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+        }
+    }
+
+    private FileEntry getEntry(String filename, File file) throws IOException {
+        FileEntry entry = entries.get(filename);
+        if (entry != null && entry.isCurrent(file)) {
+            return entry;
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        entry = new FileEntry(file, lastModified, length, computeETag(file));
+        if (entries.size() >= maxEntries) {
+            // simple bound: start over instead of tracking usage
+            entries.clear();
+        }
+        entries.put(filename, entry);
+        return entry;
+    }
+
+    private static void write(HttpServletRequest request,
+            HttpServletResponse response, File file, long start, long length)
+            throws IOException {
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE
+                .equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+            // the container writes the file to the socket without copying
+            request.setAttribute(TOMCAT_SENDFILE_FILENAME,
+                    file.getCanonicalPath());
+            request.setAttribute(TOMCAT_SENDFILE_START, start);
+            request.setAttribute(TOMCAT_SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels
+                    .newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request,
+            FileEntry entry) {
+        if (request.getHeader("If-None-Match") != null) {
+            return matchesETag(request, entry.etag);
+        }
+        long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        return ifModifiedSince >= 0
+                && entry.lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private static boolean matchesETag(HttpServletRequest request,
+            String etag) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim()
+                        .matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRangeApplicable(HttpServletRequest request,
+            FileEntry entry) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return entry.etag.equals(ifRange.trim());
+        }
+        long date = getDateHeader(request, "If-Range");
+        return date >= 0 && entry.lastModified / 1000 <= date / 1000;
+    }
+
+    /**
+     * Parses a single byte range.
+     *
+     * @return the inclusive bounds, an empty array if the range is not
+     *         satisfiable or {@code null} if the whole content should be
+     *         served
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            // multiple ranges are allowed to be answered with the full content
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1
+                        : Math.min(length - 1,
+                                Long.parseLong(spec.substring(dash + 1)));
+                if (end < start) {
+                    return null;
+                }
+            }
+            if (start >= length) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String getCacheControl(String filename) {
+        if (!servletService.getDeploymentConfiguration().isProductionMode()) {
+            // revalidation is cheap thanks to the ETag
+            return "no-cache";
+        }
+        if (filename.contains(".nocache.")) {
+            return "public, max-age=0, must-revalidate";
+        }
+        if (isFingerprinted(filename)) {
+            return "max-age=" + FINGERPRINTED_CACHE_TIME + ", immutable";
+        }
+        return "max-age=" + DEFAULT_CACHE_TIME;
+    }
+
+    /**
+     * Checks whether the name of the file contains a content hash, so that
+     * the file never changes.
+     */
+    static boolean isFingerprinted(String filename) {
+        return FINGERPRINTED.matcher(filename).matches();
+    }
+
+    private static long getDateHeader(HttpServletRequest request,
+            String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String getRequestFilename(HttpServletRequest request) {
+        if (request.getPathInfo() == null) {
+            return request.getServletPath();
+        }
+        return request.getServletPath() + request.getPathInfo();
+    }
+
+    private static File toFile(URL url) {
+        if (url == null
+                || !ResourceUtils.URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = Paths.get(url.toURI()).toFile();
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasPrecompressedVariant(File file) {
+        return new File(file.getPath() + ".gz").isFile()
+                || new File(file.getPath() + ".br").isFile();
+    }
+
+    private static String computeETag(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream stream = new DigestInputStream(
+                Files.newInputStream(file.toPath()), digest)) {
+            StreamUtils.drain(stream);
+        }
+        return '"' + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest()) + '"';
+    }
+}
@@ -17,23 +17,47 @@ package com.vaadin.flow.spring;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
+import org.springframework.util.ResourceUtils;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.di.Instantiator;
 import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.FutureAccess;
 import com.vaadin.flow.server.ServiceException;
 import com.vaadin.flow.server.SessionDestroyListener;
 import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
 import com.vaadin.flow.server.VaadinServlet;
+import com.vaadin.flow.server.VaadinServletRequest;
 import com.vaadin.flow.server.VaadinServletService;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.WebBrowser;
+import com.vaadin.flow.server.WrappedSession;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
 import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.theme.AbstractTheme;
 
@@ -44,10 +68,82 @@ import com.vaadin.flow.theme.AbstractTheme;
  */
 public class SpringVaadinServletService extends VaadinServletService {
 
+    private static final String SESSION_CREATED_ATTRIBUTE = SpringVaadinServletService.class
+            .getName() + ".sessionCreated";
+
     private final transient ApplicationContext context;
 
     private final Registration serviceDestroyRegistration;
 
+    private final int resourceCacheSize;
+
+    /**
+     * Lookup results in the static locations keyed by the resolved path, an
+     * empty value is a cached miss.
+     */
+    private final transient Map<String, Optional<URL>> resourceCache = new ConcurrentHashMap<>();
+
+    private final LongAdder resourceCacheHits = new LongAdder();
+
+    private final LongAdder resourceCacheMisses = new LongAdder();
+
+    private final LongAdder scopeLockTimeouts = new LongAdder();
+
+    /**
+     * Resource URLs keyed by the requested path, the browser ES6 support and
+     * the theme, an empty value is a cached miss.
+     */
+    private final transient Map<ThemedResourceKey, Optional<URL>> themedResourceCache = new ConcurrentHashMap<>();
+
+    private final transient ResourceBytesCache resourceBytesCache;
+
+    private final transient VaadinSessionRegistry sessionRegistry;
+
+    private final transient SessionCapacityGuard capacityGuard;
+
+    private final transient ProvisionalSessionTracker provisionalSessions;
+
+    private transient StatelessRouteRenderer statelessRoutes;
+
+    private final boolean heartbeatFastPath;
+
+    private final transient ExecutorService accessPool;
+
+    private transient volatile String[] staticLocations;
+
+    private transient StaticResourceIndex resourceIndex;
+
+    private static final class ThemedResourceKey implements Serializable {
+
+        private final String path;
+
+        private final boolean es6;
+
+        private final Class<?> themeClass;
+
+        private ThemedResourceKey(String path, boolean es6,
+                Class<?> themeClass) {
+            this.path = path;
+            this.es6 = es6;
+            this.themeClass = themeClass;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ThemedResourceKey)) {
+                return false;
+            }
+            ThemedResourceKey other = (ThemedResourceKey) obj;
+            return es6 == other.es6 && path.equals(other.path)
+                    && Objects.equals(themeClass, other.themeClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, es6, themeClass);
+        }
+    }
+
     /**
      * Creates an instance connected to the given servlet and using the given
      * configuration with provided application {@code context}.
@@ -64,6 +160,30 @@ public class SpringVaadinServletService extends VaadinServletService {
             ApplicationContext context) {
         super(servlet, deploymentConfiguration);
         this.context = context;
+        resourceCacheSize = deploymentConfiguration.isProductionMode()
+                ? deploymentConfiguration.getApplicationOrSystemProperty(
+                        SpringConstants.STATIC_RESOURCE_CACHE_SIZE,
+                        SpringConstants.DEFAULT_STATIC_RESOURCE_CACHE_SIZE,
+                        Integer::parseInt)
+                : 0;
+        long resourceBytesCacheSize = deploymentConfiguration
+                .getApplicationOrSystemProperty(
+                        SpringConstants.STATIC_RESOURCE_BYTES_CACHE_SIZE, 0L,
+                        Long::parseLong);
+        resourceBytesCache = resourceBytesCacheSize > 0
+                ? new ResourceBytesCache(resourceBytesCacheSize)
+                : null;
+        sessionRegistry = context.getBeanProvider(VaadinSessionRegistry.class)
+                .getIfAvailable(VaadinSessionRegistry::new);
+        capacityGuard = createCapacityGuard(deploymentConfiguration,
+                getSessionAttributeName());
+        provisionalSessions = createProvisionalSessionTracker(
+                deploymentConfiguration, getSessionAttributeName());
+        heartbeatFastPath = deploymentConfiguration
+                .getApplicationOrSystemProperty(
+                        SpringConstants.HEARTBEAT_FAST_PATH, false,
+                        Boolean::parseBoolean);
+        accessPool = createAccessPool(deploymentConfiguration);
         SessionDestroyListener listener = event -> sessionDestroyed(
                 event.getSession());
         Registration registration = addSessionDestroyListener(listener);
@@ -97,17 +217,262 @@ public class SpringVaadinServletService extends VaadinServletService {
                 : springInstantiators.stream().findFirst();
     }
 
+    @Override
+    public void init() throws ServiceException {
+        super.init();
+        DeploymentConfiguration configuration = getDeploymentConfiguration();
+        if (configuration.getApplicationOrSystemProperty(
+                SpringConstants.STATIC_RESOURCE_INDEX, false,
+                Boolean::parseBoolean) && getStaticLocations().length > 0) {
+            String[] locations = getStaticLocations();
+            resourceIndex = new StaticResourceIndex(context, locations,
+                    path -> findResourceURL(path, locations),
+                    this::clearResourceCache);
+            if (!configuration.isProductionMode()) {
+                resourceIndex.watch();
+            }
+        }
+        statelessRoutes = new StatelessRouteRenderer(this,
+                ApplicationRouteRegistry
+                        .getInstance(getServlet().getServletContext()),
+                context.getBeanProvider(StatelessRouteCache.class)
+                        .getIfAvailable(StatelessRouteCache::new));
+    }
+
+    @Override
+    public void handleRequest(VaadinRequest request, VaadinResponse response)
+            throws ServiceException {
+        if (heartbeatFastPath && handleContendedHeartbeat(request, response)) {
+            return;
+        }
+        if (!hasVaadinSession(request)) {
+            if (serveStatelessRoute(request, response)) {
+                return;
+            }
+            if (capacityGuard != null
+                    && !capacityGuard.admit(sessionRegistry)) {
+                response.setStatus(
+                        HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", Integer
+                        .toString(SessionCapacityGuard.RETRY_AFTER_SECONDS));
+                return;
+            }
+        }
+        super.handleRequest(request, response);
+    }
+
+    private boolean serveStatelessRoute(VaadinRequest request,
+            VaadinResponse response) throws ServiceException {
+        if (statelessRoutes == null || !isBootstrapRequest(request)) {
+            return false;
+        }
+        try {
+            return statelessRoutes.serve(request, response);
+        } catch (IOException e) {
+            throw new ServiceException(e);
+        }
+    }
+
+    @Override
+    public boolean isUIActive(UI ui) {
+        if (super.isUIActive(ui)) {
+            return true;
+        }
+        DeploymentConfiguration configuration = getDeploymentConfiguration();
+        if (ui.isClosing()
+                || !(configuration instanceof AdaptiveHeartbeatDeploymentConfiguration)) {
+            return false;
+        }
+        int maxInterval = ((AdaptiveHeartbeatDeploymentConfiguration) configuration)
+                .getAdaptiveHeartbeat().getMaxInterval();
+        if (maxInterval <= 0) {
+            return false;
+        }
+        // The UI may have got the longest interval, permit three missed
+        // heartbeats at it as the regular check does
+        long timeout = TimeUnit.SECONDS.toMillis(maxInterval * 3L + 1);
+        return System.currentTimeMillis()
+                - ui.getInternals().getLastHeartbeatTimestamp() < timeout;
+    }
+
+    private boolean handleContendedHeartbeat(VaadinRequest request,
+            VaadinResponse response) {
+        if (!(request instanceof VaadinServletRequest)
+                || VaadinRequestType.of((VaadinServletRequest) request)
+                != VaadinRequestType.HEARTBEAT) {
+            return false;
+        }
+        WrappedSession wrappedSession = request.getWrappedSession(false);
+        Object session = wrappedSession == null ? null
+                : wrappedSession.getAttribute(getSessionAttributeName());
+        return session instanceof VaadinSession && HeartbeatFastPath
+                .handle((VaadinSession) session, request, response);
+    }
+
+    private boolean hasVaadinSession(VaadinRequest request) {
+        WrappedSession session = request.getWrappedSession(false);
+        return session != null
+                && session.getAttribute(getSessionAttributeName()) != null;
+    }
+
+    private static SessionCapacityGuard createCapacityGuard(
+            DeploymentConfiguration configuration,
+            String sessionAttributeName) {
+        int sessionLimit = configuration.getApplicationOrSystemProperty(
+                SpringConstants.SESSION_LIMIT, 0, Integer::parseInt);
+        int sessionHeapLimit = configuration.getApplicationOrSystemProperty(
+                SpringConstants.SESSION_HEAP_LIMIT, 0, Integer::parseInt);
+        if (sessionLimit <= 0 && sessionHeapLimit <= 0) {
+            return null;
+        }
+        boolean evict = SpringConstants.SESSION_LIMIT_EVICT
+                .equals(configuration.getApplicationOrSystemProperty(
+                        SpringConstants.SESSION_LIMIT_POLICY,
+                        SpringConstants.SESSION_LIMIT_REJECT,
+                        String::toString));
+        int idleTime = SessionCapacityGuard.getIdleTime(configuration);
+        return new SessionCapacityGuard(sessionLimit, sessionHeapLimit / 100.0,
+                evict, TimeUnit.SECONDS.toMillis(idleTime),
+                sessionAttributeName);
+    }
+
+    private static ProvisionalSessionTracker createProvisionalSessionTracker(
+            DeploymentConfiguration configuration,
+            String sessionAttributeName) {
+        int timeout = configuration.getApplicationOrSystemProperty(
+                SpringConstants.PROVISIONAL_SESSION_TIMEOUT, 0,
+                Integer::parseInt);
+        if (timeout <= 0) {
+            return null;
+        }
+        int heartbeatInterval = configuration.getHeartbeatInterval();
+        if (heartbeatInterval <= 0) {
+            // An idle browser would never confirm its session
+            getLogger().warn(
+                    "Provisional session tracking is disabled because "
+                            + "heartbeats are disabled, '{}' is ignored",
+                    SpringConstants.PROVISIONAL_SESSION_TIMEOUT);
+            return null;
+        }
+        timeout = Math.max(timeout, heartbeatInterval
+                + SpringConstants.PROVISIONAL_SESSION_GRACE_TIME);
+        return new ProvisionalSessionTracker(
+                TimeUnit.SECONDS.toMillis(timeout), sessionAttributeName);
+    }
+
     @Override
     protected VaadinSession createVaadinSession(VaadinRequest request) {
-        return new SpringVaadinSession(this);
+        SpringVaadinSession session = new SpringVaadinSession(this);
+        sessionRegistry.register(session);
+        if (provisionalSessions != null && isBootstrapRequest(request)) {
+            request.setAttribute(SESSION_CREATED_ATTRIBUTE, Boolean.TRUE);
+            provisionalSessions.track(session);
+        }
+        return session;
+    }
+
+    @Override
+    public void requestEnd(VaadinRequest request, VaadinResponse response,
+            VaadinSession session) {
+        if (session instanceof SpringVaadinSession
+                && ((SpringVaadinSession) session).isProvisional()
+                && request.getAttribute(SESSION_CREATED_ATTRIBUTE) == null) {
+            // The client came back with the session cookie
+            ((SpringVaadinSession) session).setProvisional(false);
+        }
+        super.requestEnd(request, response, session);
+    }
+
+    private static ExecutorService createAccessPool(
+            DeploymentConfiguration configuration) {
+        if (!configuration.getApplicationOrSystemProperty(
+                SpringConstants.SERIAL_SESSION_ACCESS, false,
+                Boolean::parseBoolean)) {
+            return null;
+        }
+        int threads = configuration.getApplicationOrSystemProperty(
+                SpringConstants.SERIAL_SESSION_ACCESS_THREADS,
+                Runtime.getRuntime().availableProcessors(), Integer::parseInt);
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable,
+                    "vaadin-session-access-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the task on the serial executor of the session if serial session
+     * access is enabled and the current thread doesn't hold the session lock.
+     * A thread holding the lock queues the task as usual so that it runs when
+     * the lock is released, before the response of the request is written.
+     * <p>
+     * The session destruction is also run as an access task, so it's ordered
+     * after the tasks submitted before it.
+     */
+    @Override
+    public Future<Void> accessSession(VaadinSession session, Command command) {
+        if (accessPool == null || !(session instanceof SpringVaadinSession)
+                || session.hasLock()) {
+            return super.accessSession(session, command);
+        }
+        FutureAccess future = new FutureAccess(session, command);
+        try {
+            ((SpringVaadinSession) session).getSerialExecutor(accessPool)
+                    .execute(() -> runAccess(future));
+        } catch (RejectedExecutionException e) {
+            // The service is being destroyed
+            return super.accessSession(session, command);
+        }
+        return future;
+    }
+
+    /**
+     * Runs an access task on the serial executor of its session, which holds
+     * the session lock.
+     */
+    private static void runAccess(FutureAccess future) {
+        if (future.isCancelled()) {
+            return;
+        }
+        future.run();
+        try {
+            future.get();
+        } catch (Exception exception) {
+            future.handleError(exception);
+        }
+    }
+
+    private static boolean isBootstrapRequest(VaadinRequest request) {
+        return request instanceof VaadinServletRequest
+                && VaadinRequestType.of((VaadinServletRequest) request)
+                == VaadinRequestType.BOOTSTRAP;
+    }
+
+    /**
+     * Gets the registry of the live Vaadin sessions. The registry is shared
+     * with the other services if it is a bean of the application context.
+     *
+     * @return the session registry
+     */
+    public VaadinSessionRegistry getSessionRegistry() {
+        return sessionRegistry;
     }
 
     private void sessionDestroyed(VaadinSession session) {
         assert session instanceof SpringVaadinSession;
+        sessionRegistry.unregister((SpringVaadinSession) session);
         ((SpringVaadinSession) session).fireSessionDestroy();
     }
 
     private void serviceDestroyed(Registration registration) {
+        if (resourceIndex != null) {
+            resourceIndex.close();
+        }
+        if (accessPool != null) {
+            accessPool.shutdown();
+        }
         registration.remove();
         serviceDestroyRegistration.remove();
     }
@@ -126,19 +491,140 @@ public class SpringVaadinServletService extends VaadinServletService {
             AbstractTheme theme) {
         URL resource = super.getResource(path, browser, theme);
         if (resource == null) {
-            resource = getResourceURL(
-                    getThemeResolvedPath(path, browser, theme));
+            resource = getThemedResourceURL(path, browser, theme);
         }
         return resource;
     }
 
+    /**
+     * Gets the number of static resource lookups answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getResourceCacheHitCount() {
+        return resourceCacheHits.sum();
+    }
+
+    /**
+     * Gets the number of static resource lookups which were not found in the
+     * cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getResourceCacheMissCount() {
+        return resourceCacheMisses.sum();
+    }
+
+    /**
+     * Gets the number of jar resource reads answered from the off-heap cache.
+     *
+     * @return the number of cache hits, {@code 0} if the cache is disabled
+     */
+    public long getResourceBytesCacheHitCount() {
+        return resourceBytesCache == null ? 0
+                : resourceBytesCache.getHitCount();
+    }
+
+    /**
+     * Gets the number of jar resource reads which were not found in the
+     * off-heap cache.
+     *
+     * @return the number of cache misses, {@code 0} if the cache is disabled
+     */
+    public long getResourceBytesCacheMissCount() {
+        return resourceBytesCache == null ? 0
+                : resourceBytesCache.getMissCount();
+    }
+
+    /**
+     * Gets the number of contents evicted from the off-heap cache.
+     *
+     * @return the number of evictions, {@code 0} if the cache is disabled
+     */
+    public long getResourceBytesCacheEvictionCount() {
+        return resourceBytesCache == null ? 0
+                : resourceBytesCache.getEvictionCount();
+    }
+
+    /**
+     * Gets the total size of the contents in the off-heap cache.
+     *
+     * @return the size in bytes, {@code 0} if the cache is disabled
+     */
+    public long getResourceBytesCacheUsedBytes() {
+        return resourceBytesCache == null ? 0
+                : resourceBytesCache.getUsedBytes();
+    }
+
+    /**
+     * Gets the number of times a Vaadin scope has failed to lock a session of
+     * this service within the configured timeout (see
+     * {@link SpringConstants#SCOPE_LOCK_TIMEOUT}).
+     *
+     * @return the number of lock timeouts
+     */
+    public long getScopeLockTimeoutCount() {
+        return scopeLockTimeouts.sum();
+    }
+
+    /**
+     * Records that a Vaadin scope has failed to lock a session of this
+     * service within the configured timeout. For internal use only.
+     */
+    public void recordScopeLockTimeout() {
+        scopeLockTimeouts.increment();
+    }
+
+    /**
+     * Clears the cache of static resource lookups.
+     */
+    public void clearResourceCache() {
+        resourceCache.clear();
+        themedResourceCache.clear();
+    }
+
+    /**
+     * Gets the resources of the static resource index.
+     *
+     * @return the indexed resource URLs keyed by the path relative to the
+     *         static locations, empty if the index is disabled
+     */
+    Map<String, URL> getIndexedResources() {
+        return resourceIndex == null ? Collections.emptyMap()
+                : resourceIndex.getAll();
+    }
+
     private URL getResourceURL(String path) {
-        if (!isSpringBootConfigured()) {
+        String[] locations = getStaticLocations();
+        if (locations.length == 0) {
             return null;
         }
-        for (String prefix : context.getBean(
-                org.springframework.boot.autoconfigure.web.ResourceProperties.class)
-                .getStaticLocations()) {
+        if (resourceIndex != null) {
+            URL url = resourceIndex.get(path);
+            if (url != null) {
+                return url;
+            }
+        }
+        if (resourceCacheSize <= 0) {
+            return findResourceURL(path, locations);
+        }
+        Optional<URL> cached = resourceCache.get(path);
+        if (cached != null) {
+            resourceCacheHits.increment();
+            return cached.orElse(null);
+        }
+        resourceCacheMisses.increment();
+        URL url = findResourceURL(path, locations);
+        if (resourceCache.size() >= resourceCacheSize) {
+            // simple bound: start over instead of tracking usage
+            resourceCache.clear();
+        }
+        resourceCache.put(path, Optional.ofNullable(url));
+        return url;
+    }
+
+    private URL findResourceURL(String path, String[] locations) {
+        for (String prefix : locations) {
             Resource resource = context.getResource(getFullPath(path, prefix));
             if (resource != null) {
                 try {
@@ -151,6 +637,21 @@ public class SpringVaadinServletService extends VaadinServletService {
         return null;
     }
 
+    private String[] getStaticLocations() {
+        String[] locations = staticLocations;
+        if (locations == null) {
+            if (isSpringBootConfigured()) {
+                locations = context.getBean(
+                        org.springframework.boot.autoconfigure.web.ResourceProperties.class)
+                        .getStaticLocations();
+            } else {
+                locations = new String[0];
+            }
+            staticLocations = locations;
+        }
+        return locations;
+    }
+
     private String getFullPath(String path, String prefix) {
         if (prefix.endsWith("/") && path.startsWith("/")) {
             return prefix + path.substring(1);
@@ -183,11 +684,10 @@ public class SpringVaadinServletService extends VaadinServletService {
         InputStream resourceAsStream = super
                 .getResourceAsStream(path, browser, theme);
         if (resourceAsStream == null) {
-            URL resourceURL = getResourceURL(
-                    getThemeResolvedPath(path, browser, theme));
+            URL resourceURL = getThemedResourceURL(path, browser, theme);
             if (resourceURL != null) {
                 try {
-                    resourceAsStream = resourceURL.openStream();
+                    resourceAsStream = openStream(resourceURL);
                 } catch (IOException e) {
                     // NO-OP return null stream
                 }
@@ -196,16 +696,49 @@ public class SpringVaadinServletService extends VaadinServletService {
         return resourceAsStream;
     }
 
-    private String getThemeResolvedPath(String url, WebBrowser browser,
+    private InputStream openStream(URL url) throws IOException {
+        if (resourceBytesCache != null && ResourceUtils.isJarURL(url)) {
+            return resourceBytesCache.openStream(url);
+        }
+        return url.openStream();
+    }
+
+    private URL getThemedResourceURL(String path, WebBrowser browser,
+            AbstractTheme theme) {
+        if (resourceCacheSize <= 0) {
+            return resolveThemedResourceURL(path, browser, theme);
+        }
+        ThemedResourceKey key = new ThemedResourceKey(path,
+                browser != null && browser.isEs6Supported(),
+                theme == null ? null : theme.getClass());
+        Optional<URL> cached = themedResourceCache.get(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        URL url = resolveThemedResourceURL(path, browser, theme);
+        if (themedResourceCache.size() >= resourceCacheSize) {
+            themedResourceCache.clear();
+        }
+        themedResourceCache.put(key, Optional.ofNullable(url));
+        return url;
+    }
+
+    private URL resolveThemedResourceURL(String url, WebBrowser browser,
             AbstractTheme theme) {
         String resourceUrl = resolveResource(url, browser);
         if (theme != null) {
             String themeUrl = theme.translateUrl(resourceUrl);
-            if (!resourceUrl.equals(themeUrl)
-                    && getResourceURL(themeUrl) != null) {
-                return themeUrl;
+            if (!resourceUrl.equals(themeUrl)) {
+                URL themeResource = getResourceURL(themeUrl);
+                if (themeResource != null) {
+                    return themeResource;
+                }
             }
         }
-        return resourceUrl;
+        return getResourceURL(resourceUrl);
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(SpringVaadinServletService.class);
     }
 }
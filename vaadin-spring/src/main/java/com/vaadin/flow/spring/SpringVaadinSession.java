@@ -17,6 +17,8 @@ package com.vaadin.flow.spring;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.vaadin.flow.server.SessionDestroyEvent;
 import com.vaadin.flow.server.SessionDestroyListener;
@@ -32,8 +34,16 @@ import com.vaadin.flow.server.VaadinSession;
  */
 public class SpringVaadinSession extends VaadinSession {
 
+    private static final AtomicReferenceFieldUpdater<SpringVaadinSession, SessionSerialExecutor> SERIAL_EXECUTOR = AtomicReferenceFieldUpdater
+            .newUpdater(SpringVaadinSession.class,
+                    SessionSerialExecutor.class, "serialExecutor");
+
     private final List<SessionDestroyListener> destroyListeners = new CopyOnWriteArrayList<>();
 
+    private volatile boolean provisional;
+
+    private transient volatile SessionSerialExecutor serialExecutor;
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -73,4 +83,48 @@ public class SpringVaadinSession extends VaadinSession {
         destroyListeners.add(listener);
     }
 
+    /**
+     * Checks whether the session has served only the bootstrap request which
+     * created it.
+     *
+     * @return {@code true} if the session is provisional
+     */
+    boolean isProvisional() {
+        return provisional;
+    }
+
+    void setProvisional(boolean provisional) {
+        this.provisional = provisional;
+    }
+
+    /**
+     * Gets the number of access tasks of the session waiting or running in
+     * its serial executor. The count is always zero unless serial session
+     * access is enabled.
+     *
+     * @return the access queue depth
+     * @see SpringConstants#SERIAL_SESSION_ACCESS
+     */
+    public int getAccessQueueDepth() {
+        SessionSerialExecutor executor = serialExecutor;
+        return executor == null ? 0 : executor.getQueueDepth();
+    }
+
+    /**
+     * Gets the serial executor of the session, creating it on first use.
+     *
+     * @param pool
+     *            the pool running the tasks of a new executor
+     * @return the serial executor of the session
+     */
+    SessionSerialExecutor getSerialExecutor(Executor pool) {
+        SessionSerialExecutor executor = serialExecutor;
+        if (executor == null) {
+            SERIAL_EXECUTOR.compareAndSet(this, null,
+                    new SessionSerialExecutor(this, pool));
+            executor = serialExecutor;
+        }
+        return executor;
+    }
+
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import org.springframework.context.ApplicationListener;
+
+import com.vaadin.flow.spring.annotation.StatelessRoute;
+
+/**
+ * Cache of the pre-rendered pages of {@link StatelessRoute} targets, keyed by
+ * the route path and the locale.
+ * <p>
+ * The pages of a target are invalidated by {@link #invalidate(Class)} or by
+ * publishing a {@link StatelessRouteInvalidationEvent} if the cache is a bean
+ * of the application context, as in Spring Boot applications.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class StatelessRouteCache
+        implements ApplicationListener<StatelessRouteInvalidationEvent> {
+
+    private final Map<Key, Page> pages = new ConcurrentHashMap<>();
+
+    private static final class Key {
+
+        private final Class<?> navigationTarget;
+
+        private final String path;
+
+        private final Locale locale;
+
+        private Key(Class<?> navigationTarget, String path, Locale locale) {
+            this.navigationTarget = navigationTarget;
+            this.path = path;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return navigationTarget == other.navigationTarget
+                    && path.equals(other.path) && locale.equals(other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(navigationTarget, path, locale);
+        }
+    }
+
+    private static final class Page {
+
+        /**
+         * Renders the page once, the other threads requesting the page wait
+         * for it.
+         */
+        private final FutureTask<byte[]> content;
+
+        private final long expires;
+
+        private Page(Supplier<byte[]> renderer, long expires) {
+            content = new FutureTask<>(renderer::get);
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Gets the page of the given route, rendering it if it's not cached or
+     * has expired. A route is rendered by one thread at a time, outside of
+     * any lock of the cache, while the other threads requesting it wait.
+     *
+     * @param navigationTarget
+     *            the navigation target of the route
+     * @param path
+     *            the route path
+     * @param locale
+     *            the locale of the page
+     * @param maxAgeMillis
+     *            the time in milliseconds after which a rendered page expires,
+     *            not positive for no expiration
+     * @param renderer
+     *            renders the page, returns {@code null} if the route can't be
+     *            rendered
+     * @return the page content, or {@code null} if the route can't be
+     *         rendered
+     */
+    byte[] get(Class<?> navigationTarget, String path, Locale locale,
+            long maxAgeMillis, Supplier<byte[]> renderer) {
+        Key key = new Key(navigationTarget, path, locale);
+        long now = System.currentTimeMillis();
+        Page page = pages.get(key);
+        while (page == null || page.expires <= now) {
+            Page rendering = new Page(renderer, maxAgeMillis > 0
+                    ? now + maxAgeMillis
+                    : Long.MAX_VALUE);
+            boolean added = page == null
+                    ? pages.putIfAbsent(key, rendering) == null
+                    : pages.replace(key, page, rendering);
+            if (added) {
+                rendering.content.run();
+                page = rendering;
+            } else {
+                page = pages.get(key);
+            }
+        }
+        byte[] content = null;
+        try {
+            content = getContent(page);
+        } finally {
+            if (content == null) {
+                // Failed renderings are not cached
+                pages.remove(key, page);
+            }
+        }
+        return content;
+    }
+
+    private static byte[] getContent(Page page) {
+        try {
+            return page.content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Invalidates the pages of the given navigation target.
+     *
+     * @param navigationTarget
+     *            the navigation target
+     */
+    public void invalidate(Class<?> navigationTarget) {
+        pages.keySet().removeIf(key -> key.navigationTarget == navigationTarget);
+    }
+
+    /**
+     * Invalidates all the pages.
+     */
+    public void invalidateAll() {
+        pages.clear();
+    }
+
+    /**
+     * Gets the number of cached pages.
+     *
+     * @return the number of cached pages
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    @Override
+    public void onApplicationEvent(StatelessRouteInvalidationEvent event) {
+        if (event.getNavigationTarget().isPresent()) {
+            invalidate(event.getNavigationTarget().get());
+        } else {
+            invalidateAll();
+        }
+    }
+}
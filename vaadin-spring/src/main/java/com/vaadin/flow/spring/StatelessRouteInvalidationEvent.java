@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.spring.annotation.StatelessRoute;
+
+/**
+ * Application event invalidating the pre-rendered pages of
+ * {@link StatelessRoute} targets in the {@link StatelessRouteCache} bean.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class StatelessRouteInvalidationEvent extends ApplicationEvent {
+
+    private final Class<? extends Component> navigationTarget;
+
+    /**
+     * Creates an event invalidating the pages of all the targets.
+     *
+     * @param source
+     *            the object on which the event initially occurred
+     */
+    public StatelessRouteInvalidationEvent(Object source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates an event invalidating the pages of the given navigation target.
+     *
+     * @param source
+     *            the object on which the event initially occurred
+     * @param navigationTarget
+     *            the navigation target whose pages are invalidated, or
+     *            {@code null} for all the targets
+     */
+    public StatelessRouteInvalidationEvent(Object source,
+            Class<? extends Component> navigationTarget) {
+        super(source);
+        this.navigationTarget = navigationTarget;
+    }
+
+    /**
+     * Gets the navigation target whose pages are invalidated.
+     *
+     * @return the navigation target, or an empty optional if the pages of all
+     *         the targets are invalidated
+     */
+    public Optional<Class<? extends Component>> getNavigationTarget() {
+        return Optional.ofNullable(navigationTarget);
+    }
+}
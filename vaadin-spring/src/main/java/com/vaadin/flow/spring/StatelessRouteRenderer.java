@@ -0,0 +1,332 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.HasElement;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.page.Viewport;
+import com.vaadin.flow.di.Instantiator;
+import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.i18n.I18NProvider;
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.HasDynamicTitle;
+import com.vaadin.flow.router.HasUrlParameter;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.RouterLayout;
+import com.vaadin.flow.router.internal.BeforeEnterHandler;
+import com.vaadin.flow.router.internal.RouterUtil;
+import com.vaadin.flow.server.RouteRegistry;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.annotation.StatelessRoute;
+
+/**
+ * Serves the bootstrap requests of {@link StatelessRoute} targets from the
+ * pre-rendered pages of a {@link StatelessRouteCache}, without looking up or
+ * creating a Vaadin session.
+ * <p>
+ * The pages are rendered in a throwaway session and UI using the locale
+ * provided by the {@link I18NProvider} which best matches the request locale.
+ * Only plain HTML pages are supported, since the pages have no theme and don't
+ * load the client engine or the bootstrap page additions. A target is served
+ * by the regular bootstrap if it fails to render, if it or one of its layouts
+ * is a {@link BeforeEnterObserver}, if the UI init listeners add before enter
+ * listeners to the UI, which is how access control is usually done, or if the
+ * rendered components have client side dependencies or are custom elements.
+ * Its rendering is retried after the maximum age of its pages, or after
+ * {@link #FAILURE_RETRY_MILLIS} if they don't expire, so that a transient
+ * failure doesn't disable the stateless path until a restart.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class StatelessRouteRenderer {
+
+    private final VaadinService service;
+
+    private final RouteRegistry routeRegistry;
+
+    private final StatelessRouteCache cache;
+
+    /**
+     * Time in milliseconds after which the rendering of a failed target is
+     * retried if its pages don't expire.
+     */
+    static final long FAILURE_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The times after which the failed targets are rendered again, so that
+     * a transient failure doesn't disable the stateless path until restart.
+     */
+    private final Map<Class<?>, Long> failedTargets = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new renderer.
+     *
+     * @param service
+     *            the service whose instantiator creates the route targets
+     * @param routeRegistry
+     *            the route registry resolving the request paths
+     * @param cache
+     *            the cache of the rendered pages
+     */
+    StatelessRouteRenderer(VaadinService service, RouteRegistry routeRegistry,
+            StatelessRouteCache cache) {
+        this.service = service;
+        this.routeRegistry = routeRegistry;
+        this.cache = cache;
+    }
+
+    /**
+     * Writes the page of the route of a bootstrap request if its target is a
+     * stateless route.
+     *
+     * @param request
+     *            the bootstrap request
+     * @param response
+     *            the response
+     * @return {@code true} if the page was written, {@code false} if the
+     *         request has to be handled by the regular bootstrap
+     * @throws IOException
+     *             if writing the response fails
+     */
+    boolean serve(VaadinRequest request, VaadinResponse response)
+            throws IOException {
+        String path = getPath(request);
+        Optional<Class<? extends Component>> navigationTarget = routeRegistry
+                .getNavigationTarget(path);
+        if (!navigationTarget.isPresent()) {
+            return false;
+        }
+        Class<? extends Component> target = navigationTarget.get();
+        StatelessRoute annotation = target.getAnnotation(StatelessRoute.class);
+        if (annotation == null || HasUrlParameter.class.isAssignableFrom(target)
+                || hasFailed(target)) {
+            return false;
+        }
+        Locale locale = getLocale(request);
+        long maxAgeMillis = TimeUnit.SECONDS.toMillis(annotation.maxAge());
+        byte[] page = cache.get(target, path, locale, maxAgeMillis,
+                () -> render(target, path, locale, maxAgeMillis));
+        if (page == null) {
+            return false;
+        }
+        response.setContentType("text/html; charset=utf-8");
+        response.setHeader("Vary", "Accept-Language");
+        response.setContentLength(page.length);
+        response.getOutputStream().write(page);
+        return true;
+    }
+
+    private static String getPath(VaadinRequest request) {
+        String path = request.getPathInfo();
+        if (path == null) {
+            return "";
+        }
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private Locale getLocale(VaadinRequest request) {
+        I18NProvider provider = service.getInstantiator().getI18NProvider();
+        List<Locale> locales = provider == null ? Collections.emptyList()
+                : provider.getProvidedLocales();
+        if (locales.isEmpty()) {
+            return Locale.getDefault();
+        }
+        Locale requested = request.getLocale();
+        if (requested != null) {
+            if (locales.contains(requested)) {
+                return requested;
+            }
+            for (Locale locale : locales) {
+                if (locale.getLanguage().equals(requested.getLanguage())) {
+                    return locale;
+                }
+            }
+        }
+        return locales.get(0);
+    }
+
+    private boolean hasFailed(Class<?> target) {
+        Long retryTime = failedTargets.get(target);
+        if (retryTime == null) {
+            return false;
+        }
+        if (retryTime > System.currentTimeMillis()) {
+            return true;
+        }
+        failedTargets.remove(target, retryTime);
+        return false;
+    }
+
+    private byte[] render(Class<? extends Component> target, String path,
+            Locale locale, long maxAgeMillis) {
+        DetachedVaadinSession session = new DetachedVaadinSession(service);
+        session.lock();
+        try {
+            VaadinService.setCurrent(service);
+            VaadinSession.setCurrent(session);
+            UI ui = new UI();
+            ui.getInternals().setSession(session);
+            ui.setLocale(locale);
+            UI.setCurrent(ui);
+
+            List<Class<? extends RouterLayout>> layoutTypes = RouterUtil
+                    .getParentLayouts(target, path);
+            checkNoBeforeEnterObservers(target, layoutTypes);
+            // Access control is typically added by UI init listeners
+            service.fireUIInitListeners(ui);
+            if (!ui.getInternals().getListeners(BeforeEnterHandler.class)
+                    .isEmpty()) {
+                throw new IllegalStateException(
+                        "The UI has before enter listeners");
+            }
+
+            Instantiator instantiator = service.getInstantiator();
+            Component view = instantiator.createRouteTarget(target, null);
+            HasElement content = view;
+            for (Class<? extends RouterLayout> layoutType : layoutTypes) {
+                RouterLayout layout = instantiator.getOrCreate(layoutType);
+                layout.showRouterLayoutContent(content);
+                content = layout;
+            }
+            // Attaching registers the client side dependencies
+            ui.getElement().appendChild(content.getElement());
+            checkPlainHtml(ui, content.getElement());
+            return createPage(content.getElement().getOuterHTML(),
+                    getTitle(view), getViewport(target, layoutTypes), path,
+                    locale).getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            long retryDelay = maxAgeMillis > 0 ? maxAgeMillis
+                    : FAILURE_RETRY_MILLIS;
+            failedTargets.put(target, System.currentTimeMillis() + retryDelay);
+            getLogger().warn(
+                    "Unable to render the stateless route {}, it's served by the regular bootstrap: {}",
+                    target.getName(), e.getMessage(), e);
+            return null;
+        } finally {
+            try {
+                session.fireSessionDestroy();
+            } finally {
+                session.unlock();
+                CurrentInstance.clearAll();
+            }
+        }
+    }
+
+    private static void checkNoBeforeEnterObservers(Class<?> target,
+            List<Class<? extends RouterLayout>> layoutTypes) {
+        if (BeforeEnterObserver.class.isAssignableFrom(target)
+                || layoutTypes.stream().anyMatch(
+                        BeforeEnterObserver.class::isAssignableFrom)) {
+            throw new IllegalStateException(
+                    "The target or one of its layouts observes before enter events");
+        }
+    }
+
+    private static void checkPlainHtml(UI ui, Element content) {
+        if (!ui.getInternals().getDependencyList().getPendingSendToClient()
+                .isEmpty()) {
+            throw new IllegalStateException(
+                    "The components have client side dependencies");
+        }
+        if (hasCustomElement(content)) {
+            throw new IllegalStateException(
+                    "The components include custom elements");
+        }
+    }
+
+    private static boolean hasCustomElement(Element element) {
+        if (element.isTextNode()) {
+            return false;
+        }
+        return element.getTag().indexOf('-') >= 0 || element.getChildren()
+                .anyMatch(StatelessRouteRenderer::hasCustomElement);
+    }
+
+    /**
+     * Gets the viewport declared on the top level layout or on the target if
+     * it has no layouts.
+     */
+    private static String getViewport(Class<?> target,
+            List<Class<? extends RouterLayout>> layoutTypes) {
+        Class<?> topLevel = layoutTypes.isEmpty() ? target
+                : layoutTypes.get(layoutTypes.size() - 1);
+        Viewport viewport = topLevel.getAnnotation(Viewport.class);
+        return viewport == null ? null : viewport.value();
+    }
+
+    private static String getTitle(Component view) {
+        if (view instanceof HasDynamicTitle) {
+            return ((HasDynamicTitle) view).getPageTitle();
+        }
+        PageTitle title = view.getClass().getAnnotation(PageTitle.class);
+        return title == null ? "" : title.value();
+    }
+
+    private static String createPage(String body, String title,
+            String viewport, String path, Locale locale) {
+        Document document = Document.createShell("");
+        document.outputSettings().prettyPrint(false);
+        document.child(0).attr("lang", locale.toLanguageTag());
+        document.head().appendElement("meta").attr("charset", "UTF-8");
+        if (viewport != null) {
+            document.head().appendElement("meta").attr("name", "viewport")
+                    .attr("content", viewport);
+        }
+        document.head().appendElement("base").attr("href",
+                getBaseHref(path));
+        document.title(title == null ? "" : title);
+        document.body().append(body);
+        return "<!DOCTYPE html>" + document.outerHtml();
+    }
+
+    /**
+     * Gets the relative URL of the application root from the route path, as
+     * the regular bootstrap page does.
+     */
+    private static String getBaseHref(String path) {
+        StringBuilder href = new StringBuilder("./");
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                href.append("../");
+            }
+        }
+        return href.toString();
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(StatelessRouteRenderer.class);
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Immutable index of the files available in the Spring Boot static locations,
+ * keyed by the path relative to the location.
+ * <p>
+ * The index is built once by scanning the locations. The file system
+ * directories among the locations may be watched for changes (intended for
+ * development mode): a changed path is resolved again and a new index
+ * replaces the previous one.
+ * <p>
+ * The index only answers positive lookups: a path which is not in the index
+ * may still be resolvable (e.g. a directory or an entry of a jar without
+ * directory entries) and should be looked up in the locations.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class StaticResourceIndex implements Closeable {
+
+    private final ResourcePatternResolver resolver;
+
+    private final String[] locations;
+
+    private final Function<String, URL> locator;
+
+    private final Runnable changeListener;
+
+    private volatile Map<String, URL> index;
+
+    private WatchService watchService;
+
+    private final Map<WatchKey, Path[]> watchedDirectories = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new index and scans the {@code locations}.
+     *
+     * @param resolver
+     *            the resolver used to scan the locations
+     * @param locations
+     *            the static locations in the order of precedence
+     * @param locator
+     *            resolves a single path in the locations, used to update the
+     *            index on changes
+     * @param changeListener
+     *            called after the index has been updated on changes
+     */
+    StaticResourceIndex(ResourcePatternResolver resolver, String[] locations,
+            Function<String, URL> locator, Runnable changeListener) {
+        this.resolver = resolver;
+        this.locations = locations;
+        this.locator = locator;
+        this.changeListener = changeListener;
+        index = scan();
+    }
+
+    /**
+     * Gets the URL of the indexed resource with the given {@code path}.
+     *
+     * @param path
+     *            the path relative to the static locations
+     * @return the resource URL, or {@code null} if the path is not indexed
+     */
+    URL get(String path) {
+        return index.get(normalize(path));
+    }
+
+    /**
+     * Gets all the indexed resources.
+     *
+     * @return an unmodifiable map of the resource URLs keyed by the path
+     *         relative to the static locations
+     */
+    Map<String, URL> getAll() {
+        return index;
+    }
+
+    /**
+     * Gets the number of indexed resources.
+     *
+     * @return the index size
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Starts watching the file system directories of the static locations for
+     * changes in a daemon thread.
+     */
+    void watch() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path root : getDirectoryRoots()) {
+                register(root, root);
+            }
+        } catch (IOException e) {
+            getLogger().warn("Unable to watch the static locations", e);
+            return;
+        }
+        Thread thread = new Thread(this::processEvents,
+                "vaadin-static-resource-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                getLogger().debug("Unable to close the watch service", e);
+            }
+        }
+    }
+
+    private Map<String, URL> scan() {
+        Map<String, URL> resources = new HashMap<>();
+        for (String location : locations) {
+            if (!location.endsWith("/")) {
+                continue;
+            }
+            String allLocations = getAllLocations(location);
+            try {
+                List<String> roots = new ArrayList<>();
+                for (Resource root : resolver.getResources(allLocations)) {
+                    roots.add(root.getURL().toString());
+                }
+                for (Resource resource : resolver
+                        .getResources(allLocations + "**")) {
+                    addResource(resources, roots, resource);
+                }
+            } catch (IOException e) {
+                getLogger().warn("Unable to index the static location {}",
+                        location, e);
+            }
+        }
+        return Collections.unmodifiableMap(resources);
+    }
+
+    private static void addResource(Map<String, URL> resources,
+            List<String> roots, Resource resource) throws IOException {
+        if (!resource.isReadable()) {
+            return;
+        }
+        URL url = resource.getURL();
+        String externalForm = url.toString();
+        for (String root : roots) {
+            if (externalForm.startsWith(root)) {
+                String path = StringUtils.uriDecode(
+                        externalForm.substring(root.length()),
+                        StandardCharsets.UTF_8);
+                if (!path.isEmpty() && !path.endsWith("/")) {
+                    resources.putIfAbsent(path, url);
+                }
+                return;
+            }
+        }
+    }
+
+    private List<Path> getDirectoryRoots() throws IOException {
+        List<Path> roots = new ArrayList<>();
+        for (String location : locations) {
+            String allLocations = getAllLocations(location);
+            for (Resource root : resolver.getResources(allLocations)) {
+                URL url = root.getURL();
+                if (ResourceUtils.URL_PROTOCOL_FILE
+                        .equals(url.getProtocol())) {
+                    try {
+                        Path path = Paths.get(url.toURI());
+                        if (Files.isDirectory(path)) {
+                            roots.add(path);
+                        }
+                    } catch (URISyntaxException e) {
+                        getLogger().debug("Unable to watch {}", url, e);
+                    }
+                }
+            }
+        }
+        return roots;
+    }
+
+    private void register(Path root, Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, new Path[] { root, dir });
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            Path[] watched = watchedDirectories.get(key);
+            List<String> changedPaths = new ArrayList<>();
+            boolean overflow = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || watched == null) {
+                    overflow = true;
+                    continue;
+                }
+                Path changed = watched[1].resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(changed)) {
+                    try {
+                        register(watched[0], changed);
+                    } catch (IOException e) {
+                        getLogger().debug("Unable to watch {}", changed, e);
+                    }
+                }
+                collectPaths(watched[0], changed, changedPaths);
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+            update(overflow, changedPaths);
+        }
+    }
+
+    private void collectPaths(Path root, Path changed, List<String> paths) {
+        String relative = toRelativePath(root, changed);
+        paths.add(relative);
+        // a deleted or created directory affects all the paths below it
+        String prefix = relative + "/";
+        index.keySet().stream().filter(path -> path.startsWith(prefix))
+                .forEach(paths::add);
+        if (Files.isDirectory(changed)) {
+            try (Stream<Path> files = Files.walk(changed)) {
+                files.filter(Files::isRegularFile)
+                        .forEach(file -> paths.add(toRelativePath(root, file)));
+            } catch (IOException e) {
+                getLogger().debug("Unable to scan {}", changed, e);
+            }
+        }
+    }
+
+    private void update(boolean rescan, List<String> changedPaths) {
+        if (rescan) {
+            index = scan();
+        } else if (!changedPaths.isEmpty()) {
+            Map<String, URL> updated = new HashMap<>(index);
+            for (String path : changedPaths) {
+                URL url = locator.apply(path);
+                if (url == null || url.toString().endsWith("/")) {
+                    updated.remove(path);
+                } else {
+                    updated.put(path, url);
+                }
+            }
+            index = Collections.unmodifiableMap(updated);
+        } else {
+            return;
+        }
+        changeListener.run();
+    }
+
+    /**
+     * Makes a {@code classpath:} location match all the classpath roots
+     * instead of the first one.
+     */
+    private static String getAllLocations(String location) {
+        if (location.startsWith(ResourceUtils.CLASSPATH_URL_PREFIX)) {
+            return ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + location
+                    .substring(ResourceUtils.CLASSPATH_URL_PREFIX.length());
+        }
+        return location;
+    }
+
+    private static String toRelativePath(Path root, Path path) {
+        return normalize(root.relativize(path).toString()
+                .replace(path.getFileSystem().getSeparator(), "/"));
+    }
+
+    private static String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(StaticResourceIndex.class);
+    }
+}
@@ -38,6 +38,86 @@ public class VaadinConfigurationProperties {
      */
     private boolean asyncSupported = true;
 
+    /**
+     * Whether Vaadin internal requests (UI updates, heartbeats, uploads and
+     * stream resources) are dispatched directly to the Vaadin servlet instead
+     * of being forwarded by the Spring MVC dispatcher servlet. Applies only to
+     * the root mapping.
+     */
+    private boolean directRootDispatch = false;
+
+    /**
+     * Whether the embedded Tomcat handles requests on virtual threads.
+     * Requires Java 21 or newer, ignored otherwise. The mode has not been
+     * benchmarked against the platform thread pool, measure the application
+     * before enabling it in production.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Navigation targets warm-up configuration.
+     */
+    private final WarmUp warmUp = new WarmUp();
+
+    /**
+     * Configuration properties for the navigation targets warm-up.
+     *
+     * @see RouteTargetWarmUp
+     */
+    public static class WarmUp {
+
+        /**
+         * Whether navigation targets are instantiated when the Vaadin servlet
+         * is initialized. The Vaadin servlet is loaded on startup if the
+         * warm-up is enabled. Requests to the servlet wait until the warm-up
+         * is done, which delays the first responses by its duration.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of times each navigation target is instantiated.
+         */
+        private int iterations = 1;
+
+        /**
+         * Returns if the warm-up is enabled.
+         *
+         * @return if the warm-up is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets {@code enabled} property value.
+         *
+         * @param enabled
+         *            the {@code enabled} property value
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the number of times each navigation target is instantiated.
+         *
+         * @return the number of warm-up iterations
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Sets {@code iterations} property value.
+         *
+         * @param iterations
+         *            the {@code iterations} property value
+         */
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+    }
+
     /**
      * Gets the url mapping for the Vaadin servlet.
      *
@@ -56,6 +136,34 @@ public class VaadinConfigurationProperties {
         return asyncSupported;
     }
 
+    /**
+     * Returns if Vaadin internal requests are dispatched directly to the
+     * Vaadin servlet with the root mapping.
+     *
+     * @return if direct dispatch is enabled
+     */
+    public boolean isDirectRootDispatch() {
+        return directRootDispatch;
+    }
+
+    /**
+     * Returns if the embedded Tomcat handles requests on virtual threads.
+     *
+     * @return if virtual threads are enabled
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Gets the navigation targets warm-up configuration.
+     *
+     * @return the warm-up configuration
+     */
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
     /**
      * Sets {@code urlMapping} property value.
      *
@@ -76,4 +184,24 @@ public class VaadinConfigurationProperties {
         this.asyncSupported = asyncSupported;
     }
 
+    /**
+     * Sets {@code directRootDispatch} property value.
+     *
+     * @param directRootDispatch
+     *            the {@code directRootDispatch} property value
+     */
+    public void setDirectRootDispatch(boolean directRootDispatch) {
+        this.directRootDispatch = directRootDispatch;
+    }
+
+    /**
+     * Sets {@code virtualThreads} property value.
+     *
+     * @param virtualThreads
+     *            the {@code virtualThreads} property value
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
 }
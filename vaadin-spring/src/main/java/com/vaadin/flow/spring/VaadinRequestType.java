@@ -0,0 +1,164 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.vaadin.flow.server.communication.StreamRequestHandler;
+import com.vaadin.flow.shared.ApplicationConstants;
+
+/**
+ * Types of the requests handled by the Vaadin servlet, used to tag request
+ * metrics.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public enum VaadinRequestType {
+
+    /**
+     * Initial page request rendering a route.
+     */
+    BOOTSTRAP("bootstrap"),
+    /**
+     * Client-server UI communication.
+     */
+    UIDL("uidl"),
+    /**
+     * Heartbeat keeping the UI alive.
+     */
+    HEARTBEAT("heartbeat"),
+    /**
+     * Push connection.
+     */
+    PUSH("push"),
+    /**
+     * File upload to a stream receiver.
+     */
+    UPLOAD("upload"),
+    /**
+     * Download of a stream resource.
+     */
+    STREAM_RESOURCE("stream-resource"),
+    /**
+     * Static file or webjar resource.
+     */
+    STATIC_RESOURCE("static-resource"),
+    /**
+     * Request whose handling failed with an exception or a server error.
+     */
+    ERROR("error"),
+    /**
+     * Any other request.
+     */
+    OTHER("other");
+
+    private static final String REQUEST_TYPE_PARAMETER = ApplicationConstants.REQUEST_TYPE_PARAMETER
+            + "=";
+
+    private static final String NEXT_REQUEST_TYPE_PARAMETER = "&"
+            + REQUEST_TYPE_PARAMETER;
+
+    private static final String DYNAMIC_RESOURCE_PREFIX = "/"
+            + StreamRequestHandler.DYN_RES_PREFIX;
+
+    private final String tag;
+
+    VaadinRequestType(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Gets the metrics tag value of the type.
+     *
+     * @return the tag value
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Gets the type of the given {@code request} based on its request type
+     * parameter and path, without reading the request body.
+     * <p>
+     * Static resources can't be recognized from the request, so
+     * {@link #STATIC_RESOURCE} is never returned.
+     *
+     * @param request
+     *            the request as seen by the Vaadin servlet
+     * @return the request type
+     */
+    public static VaadinRequestType of(HttpServletRequest request) {
+        return of(request, request.getPathInfo());
+    }
+
+    /**
+     * Gets the type of the given {@code request} whose path within the Vaadin
+     * servlet is given separately, for requests which haven't been mapped to
+     * the Vaadin servlet yet.
+     *
+     * @param request
+     *            the request
+     * @param path
+     *            the path of the request within the Vaadin servlet, or
+     *            {@code null} if it has none
+     * @return the request type
+     */
+    static VaadinRequestType of(HttpServletRequest request, String path) {
+        String query = request.getQueryString();
+        if (query != null) {
+            int index = 0;
+            if (!query.startsWith(REQUEST_TYPE_PARAMETER)) {
+                index = query.indexOf(NEXT_REQUEST_TYPE_PARAMETER);
+                if (index >= 0) {
+                    index++;
+                }
+            }
+            if (index >= 0) {
+                VaadinRequestType type = ofParameter(query,
+                        index + REQUEST_TYPE_PARAMETER.length());
+                if (type != null) {
+                    return type;
+                }
+            }
+        }
+        if (path != null && path.startsWith(DYNAMIC_RESOURCE_PREFIX)) {
+            return "POST".equals(request.getMethod()) ? UPLOAD
+                    : STREAM_RESOURCE;
+        }
+        return "GET".equals(request.getMethod()) ? BOOTSTRAP : OTHER;
+    }
+
+    private static VaadinRequestType ofParameter(String query, int offset) {
+        if (matches(query, offset, ApplicationConstants.REQUEST_TYPE_UIDL)) {
+            return UIDL;
+        }
+        if (matches(query, offset,
+                ApplicationConstants.REQUEST_TYPE_HEARTBEAT)) {
+            return HEARTBEAT;
+        }
+        if (matches(query, offset, ApplicationConstants.REQUEST_TYPE_PUSH)) {
+            return PUSH;
+        }
+        return null;
+    }
+
+    private static boolean matches(String query, int offset, String value) {
+        int end = offset + value.length();
+        return query.startsWith(value, offset)
+                && (end == query.length() || query.charAt(end) == '&');
+    }
+}
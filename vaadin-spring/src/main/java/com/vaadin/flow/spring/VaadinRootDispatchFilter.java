@@ -0,0 +1,113 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.servlet.DispatcherServlet;
+
+import com.vaadin.flow.server.VaadinServlet;
+
+/**
+ * Filter which passes Vaadin internal requests directly to the Vaadin servlet
+ * when it is mapped to the root.
+ * <p>
+ * Normally every request is handled by the {@link DispatcherServlet} which
+ * forwards the requests it has no other handler for to the Vaadin servlet (see
+ * {@link VaadinServletConfiguration}). Internal requests (UI updates,
+ * heartbeats, uploads identified by the request type parameter and stream
+ * resources) are never handled by Spring MVC endpoints, so the filter skips the
+ * handler lookup and the forward for them. Other requests (e.g. navigation to a
+ * route) keep going through the {@link DispatcherServlet} so that Spring MVC
+ * endpoints are still resolved first. Until the Vaadin servlet has been
+ * initialized by the container, all requests go through the
+ * {@link DispatcherServlet} as well.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class VaadinRootDispatchFilter implements Filter {
+
+    private final Servlet servlet;
+
+    /**
+     * Creates a new filter dispatching to the given Vaadin {@code servlet}.
+     *
+     * @param servlet
+     *            the Vaadin servlet
+     */
+    public VaadinRootDispatchFilter(Servlet servlet) {
+        this.servlet = servlet;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // NO-OP
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        if (request instanceof HttpServletRequest && isInitialized()
+                && isInternalRequest((HttpServletRequest) request)) {
+            servlet.service(request, response);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // NO-OP
+    }
+
+    /**
+     * Checks whether the Vaadin servlet can handle requests. The container
+     * initializes a servlet without load on startup on its first request
+     * through the servlet mapping, which calling the servlet directly skips.
+     */
+    private boolean isInitialized() {
+        return !(servlet instanceof VaadinServlet)
+                || ((VaadinServlet) servlet).getService() != null;
+    }
+
+    /**
+     * Checks whether the {@code request} is a Vaadin internal request.
+     *
+     * @param request
+     *            the request to check
+     * @return {@code true} if the request is handled only by the Vaadin
+     *         servlet
+     */
+    static boolean isInternalRequest(HttpServletRequest request) {
+        // The Vaadin servlet is mapped to the root, so its path is the path
+        // within the context
+        String path = request.getRequestURI()
+                .substring(request.getContextPath().length());
+        VaadinRequestType type = VaadinRequestType.of(request, path);
+        return type != VaadinRequestType.BOOTSTRAP
+                && type != VaadinRequestType.OTHER;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.WrappedSession;
+
+/**
+ * Closes Vaadin sessions from outside of a request without dropping the state
+ * other frameworks keep in the same HTTP session.
+ * <p>
+ * The HTTP session is invalidated only if it holds nothing but the attributes
+ * set by Vaadin. Otherwise only the Vaadin session attribute is removed, so
+ * that e.g. a security context stays and the user isn't logged out.
+ * Unbinding the Vaadin session from the HTTP session makes the service
+ * destroy it (see {@link VaadinSession#valueUnbound}).
+ *
+ * @author Vaadin Ltd
+ *
+ */
+final class VaadinSessionCloser {
+
+    private VaadinSessionCloser() {
+        // Static methods only
+    }
+
+    /**
+     * Closes the given session.
+     *
+     * @param session
+     *            the session to close
+     * @param sessionAttributeName
+     *            the name of the HTTP session attribute holding the Vaadin
+     *            session, which is also the prefix of the names of the other
+     *            attributes set by Vaadin
+     * @return {@code true} if the session was closed, {@code false} if it
+     *         was already closed
+     */
+    static boolean close(VaadinSession session, String sessionAttributeName) {
+        WrappedSession wrappedSession = session.getSession();
+        if (wrappedSession == null) {
+            return false;
+        }
+        try {
+            if (isVaadinOnly(wrappedSession, sessionAttributeName)) {
+                wrappedSession.invalidate();
+            } else {
+                wrappedSession.removeAttribute(sessionAttributeName);
+            }
+            return true;
+        } catch (IllegalStateException e) {
+            // Already invalidated
+            return false;
+        }
+    }
+
+    private static boolean isVaadinOnly(WrappedSession wrappedSession,
+            String sessionAttributeName) {
+        return wrappedSession.getAttributeNames().stream()
+                .allMatch(name -> name.startsWith(sessionAttributeName));
+    }
+}
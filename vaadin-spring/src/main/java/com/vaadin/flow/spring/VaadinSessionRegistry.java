@@ -0,0 +1,85 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+
+/**
+ * Registry of the live {@link SpringVaadinSession}s created by
+ * {@link SpringVaadinServletService}.
+ * <p>
+ * A session is registered when it is created and removed when it is destroyed.
+ * Sessions are weakly referenced so a session whose HTTP session is discarded
+ * without a destroy event is not kept alive by the registry. Counting the
+ * sessions takes constant time and iterating them doesn't block: the
+ * iteration is weakly consistent and reflects the sessions registered or
+ * removed concurrently or not.
+ * <p>
+ * The registry is available as a bean in Spring Boot applications and via
+ * {@link SpringVaadinServletService#getSessionRegistry()}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class VaadinSessionRegistry {
+
+    private final Set<SpringVaadinSession> sessions = Collections
+            .newSetFromMap(new ConcurrentReferenceHashMap<>(16,
+                    ReferenceType.WEAK));
+
+    /**
+     * Registers a new session.
+     *
+     * @param session
+     *            the session to register, not {@code null}
+     */
+    public void register(SpringVaadinSession session) {
+        sessions.add(session);
+    }
+
+    /**
+     * Removes a destroyed session from the registry.
+     *
+     * @param session
+     *            the session to remove, not {@code null}
+     */
+    public void unregister(SpringVaadinSession session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return the number of live sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the live sessions.
+     *
+     * @return an unmodifiable, weakly consistent view of the live sessions
+     */
+    public Collection<SpringVaadinSession> getSessions() {
+        return Collections.unmodifiableSet(sessions);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+
+/**
+ * Makes the embedded Tomcat handle requests on virtual threads, one per
+ * request, when the runtime supports them (Java 21 or newer).
+ * <p>
+ * The blocking points of the Vaadin request handling don't pin the carrier
+ * threads: the session lock is a {@link java.util.concurrent.locks.Lock},
+ * which the scopes also use for the bean stores, and push connections are
+ * suspended with asynchronous servlet requests instead of parked threads.
+ * Stateless routes are rendered outside of any lock of their cache, and
+ * threads requesting a page being rendered wait on a future. The remaining
+ * monitors, those of {@link ResourceBytesCache} and of the
+ * {@code computeIfAbsent} calls of the instantiator, the metrics and the
+ * translation caches, only guard in-memory updates. Application code holding
+ * monitors while blocking still pins the carrier threads.
+ * <p>
+ * The mode has not been measured against the platform thread pool.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+class VirtualThreadsCustomizer
+        implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory) {
+        ExecutorService executor = createExecutor();
+        if (executor == null) {
+            getLogger().warn(
+                    "Virtual threads are not supported by Java {}, requests are handled by the platform thread pool",
+                    System.getProperty("java.version"));
+            return;
+        }
+        factory.addConnectorCustomizers(
+                connector -> connector.getProtocolHandler().setExecutor(executor));
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task.
+     *
+     * @return the executor, or {@code null} if the runtime doesn't support
+     *         virtual threads
+     */
+    static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(VirtualThreadsCustomizer.class);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.actuate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.communication.PushConnection;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
+import com.vaadin.flow.spring.SpringServlet;
+import com.vaadin.flow.spring.SpringVaadinServletService;
+import com.vaadin.flow.spring.SpringVaadinSession;
+import com.vaadin.flow.spring.VaadinSessionRegistry;
+import com.vaadin.flow.spring.scopes.VaadinSessionScope;
+import com.vaadin.flow.spring.scopes.VaadinUIScope;
+
+/**
+ * Actuator endpoint reporting a snapshot of the Vaadin runtime: live sessions,
+ * UIs, push connections, scoped beans and registered routes.
+ * <p>
+ * The snapshot is sampled: at most {@code sampleSize} sessions are inspected
+ * and a session whose lock is held by another thread is skipped instead of
+ * waited for. The sizes of the sessions are reported by the separate
+ * {@link VaadinSessionSizeEndpoint}, which is more expensive.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+@Endpoint(id = "vaadin")
+public class VaadinEndpoint {
+
+    private final SpringServlet servlet;
+
+    private final int sampleSize;
+
+    /**
+     * Creates a new endpoint for the given Vaadin servlet.
+     *
+     * @param servlet
+     *            the Vaadin servlet
+     * @param sampleSize
+     *            the maximum number of sessions inspected per snapshot
+     */
+    public VaadinEndpoint(SpringServlet servlet, int sampleSize) {
+        this.servlet = servlet;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Takes a snapshot of the Vaadin runtime.
+     *
+     * @return the snapshot
+     */
+    @ReadOperation
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        VaadinService service = servlet.getService();
+        if (!(service instanceof SpringVaadinServletService)) {
+            snapshot.put("initialized", false);
+            return snapshot;
+        }
+        snapshot.put("initialized", true);
+        snapshot.put("routes",
+                ApplicationRouteRegistry
+                        .getInstance(servlet.getServletContext())
+                        .getRegisteredRoutes().size());
+
+        VaadinSessionRegistry registry = ((SpringVaadinServletService) service)
+                .getSessionRegistry();
+        snapshot.put("sessions", registry.getSessionCount());
+
+        int sampled = 0;
+        int skipped = 0;
+        int uis = 0;
+        int maxUis = 0;
+        int sessionBeans = 0;
+        int uiBeans = 0;
+        int queuedAccesses = 0;
+        int maxQueuedAccesses = 0;
+        Map<String, Integer> pushConnections = new TreeMap<>();
+        for (SpringVaadinSession session : registry.getSessions()) {
+            if (sampled + skipped >= sampleSize) {
+                break;
+            }
+            // Doesn't need the lock, so also counted for skipped sessions
+            int queueDepth = session.getAccessQueueDepth();
+            queuedAccesses += queueDepth;
+            maxQueuedAccesses = Math.max(maxQueuedAccesses, queueDepth);
+            Lock lock = session.getLockInstance();
+            if (lock == null || !lock.tryLock()) {
+                skipped++;
+                continue;
+            }
+            try {
+                Collection<UI> sessionUIs = session.getUIs();
+                for (UI ui : sessionUIs) {
+                    PushConnection connection = ui.getInternals()
+                            .getPushConnection();
+                    if (connection != null && connection.isConnected()) {
+                        pushConnections.merge(
+                                ui.getPushConfiguration().getTransport()
+                                        .getIdentifier(),
+                                1, Integer::sum);
+                    }
+                }
+                sampled++;
+                uis += sessionUIs.size();
+                maxUis = Math.max(maxUis, sessionUIs.size());
+                sessionBeans += VaadinSessionScope.getBeanCount(session);
+                uiBeans += VaadinUIScope.getBeanCount(session);
+            } finally {
+                // Runs the access tasks queued while the lock was held
+                session.unlock();
+            }
+        }
+        snapshot.put("sampledSessions", sampled);
+        snapshot.put("skippedSessions", skipped);
+
+        Map<String, Object> uiStats = new LinkedHashMap<>();
+        uiStats.put("total", uis);
+        uiStats.put("perSessionAverage",
+                sampled == 0 ? 0 : (double) uis / sampled);
+        uiStats.put("perSessionMax", maxUis);
+        snapshot.put("uis", uiStats);
+        snapshot.put("pushConnections", pushConnections);
+
+        Map<String, Object> accessQueue = new LinkedHashMap<>();
+        accessQueue.put("total", queuedAccesses);
+        accessQueue.put("perSessionMax", maxQueuedAccesses);
+        snapshot.put("accessQueue", accessQueue);
+
+        Map<String, Object> beans = new LinkedHashMap<>();
+        beans.put(VaadinSessionScope.VAADIN_SESSION_SCOPE_NAME, sessionBeans);
+        beans.put(VaadinUIScope.VAADIN_UI_SCOPE_NAME, uiBeans);
+        snapshot.put("scopedBeans", beans);
+        snapshot.put("scopeLockTimeouts",
+                ((SpringVaadinServletService) service)
+                        .getScopeLockTimeoutCount());
+
+        return snapshot;
+    }
+}
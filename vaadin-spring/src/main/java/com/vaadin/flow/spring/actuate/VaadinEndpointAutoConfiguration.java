@@ -0,0 +1,92 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.actuate;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnEnabledEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.vaadin.flow.spring.SpringBootAutoConfiguration;
+import com.vaadin.flow.spring.SpringServlet;
+
+/**
+ * Spring boot auto-configuration of the {@link VaadinEndpoint} and
+ * {@link VaadinSessionSizeEndpoint} actuator endpoints.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+@Configuration
+@ConditionalOnClass(Endpoint.class)
+@AutoConfigureAfter(SpringBootAutoConfiguration.class)
+public class VaadinEndpointAutoConfiguration {
+
+    /**
+     * The maximum number of sessions inspected per snapshot.
+     */
+    static final int SAMPLE_SIZE = 1000;
+
+    /**
+     * The maximum number of sessions whose size is estimated per call.
+     */
+    static final int SIZE_SAMPLE_SIZE = 50;
+
+    /**
+     * The number of largest sessions listed.
+     */
+    static final int TOP_SESSIONS = 10;
+
+    /**
+     * Creates the Vaadin runtime endpoint.
+     *
+     * @param servletRegistration
+     *            the registration of the Vaadin servlet
+     * @return the endpoint
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnEnabledEndpoint
+    @ConditionalOnBean(name = "servletRegistrationBean")
+    public VaadinEndpoint vaadinEndpoint(
+            ServletRegistrationBean<SpringServlet> servletRegistration) {
+        return new VaadinEndpoint(servletRegistration.getServlet(),
+                SAMPLE_SIZE);
+    }
+
+    /**
+     * Creates the Vaadin session size endpoint, which has to be enabled
+     * explicitly with {@code management.endpoint.vaadinsessions.enabled}.
+     *
+     * @param servletRegistration
+     *            the registration of the Vaadin servlet
+     * @return the endpoint
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnEnabledEndpoint
+    @ConditionalOnBean(name = "servletRegistrationBean")
+    public VaadinSessionSizeEndpoint vaadinSessionSizeEndpoint(
+            ServletRegistrationBean<SpringServlet> servletRegistration) {
+        return new VaadinSessionSizeEndpoint(servletRegistration.getServlet(),
+                SIZE_SAMPLE_SIZE, TOP_SESSIONS);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.actuate;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.spring.SpringServlet;
+import com.vaadin.flow.spring.SpringVaadinServletService;
+import com.vaadin.flow.spring.SpringVaadinSession;
+
+/**
+ * Actuator endpoint listing the largest Vaadin sessions by their estimated
+ * retained size.
+ * <p>
+ * The size of a session is estimated by its serialized size, which takes time
+ * and memory proportional to the session state and holds the session lock
+ * meanwhile. The endpoint is therefore disabled by default, inspects at most
+ * {@code sampleSize} sessions, skips the sessions whose lock is held by another
+ * thread and reports {@code -1} for sessions which are not serializable.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+@Endpoint(id = "vaadinsessions", enableByDefault = false)
+public class VaadinSessionSizeEndpoint {
+
+    private final SpringServlet servlet;
+
+    private final int sampleSize;
+
+    private final int topSessions;
+
+    private static class SessionInfo {
+
+        private final String id;
+
+        private final int uis;
+
+        private final long estimatedSize;
+
+        private final long lastRequestTimestamp;
+
+        private SessionInfo(SpringVaadinSession session, long estimatedSize) {
+            id = Integer.toHexString(System.identityHashCode(session));
+            uis = session.getUIs().size();
+            this.estimatedSize = estimatedSize;
+            lastRequestTimestamp = session.getLastRequestTimestamp();
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("uis", uis);
+            map.put("estimatedSize", estimatedSize);
+            map.put("lastRequestTimestamp", lastRequestTimestamp);
+            return map;
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+
+    /**
+     * Creates a new endpoint for the given Vaadin servlet.
+     *
+     * @param servlet
+     *            the Vaadin servlet
+     * @param sampleSize
+     *            the maximum number of sessions inspected per call
+     * @param topSessions
+     *            the number of largest sessions listed
+     */
+    public VaadinSessionSizeEndpoint(SpringServlet servlet, int sampleSize,
+            int topSessions) {
+        this.servlet = servlet;
+        this.sampleSize = sampleSize;
+        this.topSessions = topSessions;
+    }
+
+    /**
+     * Lists the largest sessions of the sample.
+     *
+     * @return the sizes of the largest sessions
+     */
+    @ReadOperation
+    public Map<String, Object> largestSessions() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        VaadinService service = servlet.getService();
+        if (!(service instanceof SpringVaadinServletService)) {
+            result.put("initialized", false);
+            return result;
+        }
+        result.put("initialized", true);
+
+        int skipped = 0;
+        List<SessionInfo> infos = new ArrayList<>();
+        for (SpringVaadinSession session : ((SpringVaadinServletService) service)
+                .getSessionRegistry().getSessions()) {
+            if (infos.size() + skipped >= sampleSize) {
+                break;
+            }
+            Lock lock = session.getLockInstance();
+            if (lock == null || !lock.tryLock()) {
+                skipped++;
+                continue;
+            }
+            try {
+                infos.add(new SessionInfo(session, estimateSize(session)));
+            } finally {
+                // Runs the access tasks queued while the lock was held
+                session.unlock();
+            }
+        }
+        result.put("sampledSessions", infos.size());
+        result.put("skippedSessions", skipped);
+        result.put("largestSessions",
+                infos.stream()
+                        .sorted(Comparator.comparingLong(
+                                (SessionInfo info) -> info.estimatedSize)
+                                .reversed())
+                        .limit(topSessions).map(SessionInfo::toMap)
+                        .collect(Collectors.toList()));
+        return result;
+    }
+
+    /**
+     * Estimates the retained size of a locked session by its serialized size.
+     *
+     * @return the estimated size in bytes or {@code -1} if the session is not
+     *         serializable
+     */
+    private static long estimateSize(SpringVaadinSession session) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(counter)) {
+            stream.writeObject(session);
+        } catch (IOException e) {
+            return -1;
+        }
+        return counter.count;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code @Route} target as stateless: the route is rendered once per
+ * locale to plain HTML which is served to the visitors without a Vaadin
+ * session.
+ * <p>
+ * The target and its parent layouts are instantiated through the
+ * {@code Instantiator} in a throwaway session and UI, so their content must be
+ * built in the constructors: the navigation lifecycle doesn't run. Since
+ * access control is usually implemented with before enter observers or
+ * listeners, a target is not pre-rendered if it or one of its layouts
+ * implements {@code BeforeEnterObserver} or if the UI init listeners add a
+ * {@code BeforeEnterListener} to the UI. Such targets are served by the
+ * regular bootstrap.
+ * <p>
+ * Only plain HTML pages are supported. The page has no theme, doesn't load the
+ * client engine and isn't modified by bootstrap listeners, only the
+ * {@code PageTitle} and {@code Viewport} of the route are applied. It should
+ * consist of plain HTML components and links to the regular routes, which
+ * bootstrap the application and create the session when the user follows
+ * them. A target whose components have client side dependencies, such as
+ * {@code HtmlImport} or {@code StyleSheet}, or which contains custom elements
+ * is served by the regular bootstrap, as are targets with URL parameters.
+ * <p>
+ * The rendered pages are invalidated after {@link #maxAge()} or via
+ * {@link com.vaadin.flow.spring.StatelessRouteCache}.
+ *
+ * @author Vaadin Ltd
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StatelessRoute {
+
+    /**
+     * Time in seconds after which the rendered page is rendered again. The
+     * page is kept until it's invalidated if the value is not positive (the
+     * default).
+     *
+     * @return the maximum age of the rendered page in seconds
+     */
+    long maxAge() default 0;
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.i18n;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.i18n.I18NProvider;
+
+/**
+ * {@link I18NProvider} decorator which caches translations of the delegate
+ * provider per locale.
+ * <p>
+ * Only translations requested without parameters are cached. A call with
+ * parameters always goes to the delegate: the formatting is done by the
+ * delegate, which may not use {@link java.text.MessageFormat} at all, so
+ * neither the message pattern nor a format instance can be cached here
+ * without changing the result. Parameterized translations are therefore not
+ * sped up by this class and aren't counted as hits or misses.
+ * <p>
+ * At most {@code maxSize} translations are kept per locale. When the cache of
+ * a locale is full it is cleared and filled again by the following calls.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class CachingI18NProvider implements I18NProvider {
+
+    private final I18NProvider delegate;
+
+    private final int maxSize;
+
+    private final Map<Locale, Map<String, String>> translations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new caching provider.
+     *
+     * @param delegate
+     *            the provider to cache translations of, not {@code null}
+     * @param maxSize
+     *            the maximum number of cached translations per locale
+     */
+    public CachingI18NProvider(I18NProvider delegate, int maxSize) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public List<Locale> getProvidedLocales() {
+        return delegate.getProvidedLocales();
+    }
+
+    @Override
+    public String getTranslation(String key, Locale locale, Object... params) {
+        if (params != null && params.length > 0 || key == null
+                || locale == null) {
+            return delegate.getTranslation(key, locale, params);
+        }
+        Map<String, String> cache = getCache(locale);
+        String translation = cache.get(key);
+        if (translation != null) {
+            hits.increment();
+            return translation;
+        }
+        misses.increment();
+        return fetch(cache, key, locale);
+    }
+
+    /**
+     * Preloads the translations of all the keys of the resource bundles with
+     * the given {@code baseName} for every provided locale.
+     *
+     * @param baseName
+     *            the base name of the resource bundles
+     */
+    public void warmUp(String baseName) {
+        List<Locale> locales = getProvidedLocales();
+        if (locales == null) {
+            return;
+        }
+        for (Locale locale : locales) {
+            ResourceBundle bundle;
+            try {
+                bundle = ResourceBundle.getBundle(baseName, locale,
+                        delegate.getClass().getClassLoader());
+            } catch (MissingResourceException e) {
+                LoggerFactory.getLogger(CachingI18NProvider.class).debug(
+                        "No resource bundle '{}' for the locale '{}'",
+                        baseName, locale);
+                continue;
+            }
+            Map<String, String> cache = getCache(locale);
+            for (String key : bundle.keySet()) {
+                fetch(cache, key, locale);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of translations returned from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of translations which were not found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the decorated provider.
+     *
+     * @return the decorated provider
+     */
+    public I18NProvider getDelegate() {
+        return delegate;
+    }
+
+    private Map<String, String> getCache(Locale locale) {
+        return translations.computeIfAbsent(locale,
+                key -> new ConcurrentHashMap<>());
+    }
+
+    private String fetch(Map<String, String> cache, String key,
+            Locale locale) {
+        String translation = delegate.getTranslation(key, locale);
+        if (translation != null) {
+            if (cache.size() >= maxSize) {
+                // simple bound: start over instead of tracking usage
+                cache.clear();
+            }
+            cache.put(key, translation);
+        }
+        return translation;
+    }
+}
@@ -18,6 +18,8 @@ package com.vaadin.flow.spring.scopes;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 
 import org.slf4j.Logger;
@@ -25,10 +27,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.Scope;
 
+import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.SpringConstants;
 
 /**
  * Spring bean store class to keep scope objects.
+ * <p>
+ * All the modifications are done holding the {@link VaadinSession} lock. If
+ * {@link SpringConstants#SCOPE_SHARED_READS} is enabled then lookups of the
+ * already existing beans don't require the session lock: they use a shared
+ * read lock which is owned by the store.
  *
  * @author Vaadin Ltd
  *
@@ -44,6 +53,8 @@ class BeanStore implements Serializable {
 
     private final Map<String, Runnable> destructionCallbacks = new HashMap<>();
 
+    private final ReentrantReadWriteLock objectsLock;
+
     /**
      * Creates a new instance for the given {@code session}.
      *
@@ -53,6 +64,9 @@ class BeanStore implements Serializable {
     BeanStore(VaadinSession session) {
         assert session.hasLock();
         this.session = session;
+        objectsLock = isSharedReadsEnabled(session)
+                ? new ReentrantReadWriteLock()
+                : null;
     }
 
     /**
@@ -68,6 +82,13 @@ class BeanStore implements Serializable {
      * @see Scope#get(String, ObjectFactory)
      */
     Object get(String name, ObjectFactory<?> objectFactory) {
+        if (objectsLock != null) {
+            Object bean = withLock(objectsLock.readLock(),
+                    () -> objects.get(name));
+            if (bean != null) {
+                return bean;
+            }
+        }
         return execute(() -> doGet(name, objectFactory));
     }
 
@@ -95,13 +116,43 @@ class BeanStore implements Serializable {
     }
 
     void destroy() {
-        execute(this::doDestroy);
+        // destruction is never skipped because of the lock timeout
+        if (session.hasLock()) {
+            doDestroy();
+        } else {
+            session.lock();
+            try {
+                doDestroy();
+            } finally {
+                session.unlock();
+            }
+        }
     }
 
     VaadinSession getVaadinSession() {
         return session;
     }
 
+    /**
+     * Returns whether existing beans may be read from this store without
+     * holding the session lock.
+     *
+     * @return {@code true} if shared reads are enabled for the store
+     */
+    boolean isSharedReads() {
+        return objectsLock != null;
+    }
+
+    /**
+     * Gets the number of beans in the store.
+     *
+     * @return the number of beans
+     */
+    int getBeanCount() {
+        assert session.hasLock();
+        return objects.size();
+    }
+
     Void doDestroy() {
         assert session.hasLock();
         for (Runnable destructionCallback : destructionCallbacks.values()) {
@@ -112,29 +163,62 @@ class BeanStore implements Serializable {
             }
         }
         destructionCallbacks.clear();
-        objects.clear();
+        modifyObjects(() -> {
+            objects.clear();
+            return null;
+        });
         return null;
     }
 
     private Object doRemove(String name) {
         destructionCallbacks.remove(name);
-        return objects.remove(name);
+        return modifyObjects(() -> objects.remove(name));
     }
 
     private Object doGet(String name, ObjectFactory<?> objectFactory) {
         Object bean = objects.get(name);
         if (bean == null) {
-            bean = objectFactory.getObject();
-            objects.put(name, bean);
+            Object created = objectFactory.getObject();
+            modifyObjects(() -> objects.put(name, created));
+            bean = created;
         }
         return bean;
     }
 
+    private <T> T modifyObjects(Supplier<T> supplier) {
+        assert session.hasLock();
+        if (objectsLock == null) {
+            return supplier.get();
+        }
+        return withLock(objectsLock.writeLock(), supplier);
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> supplier) {
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isSharedReadsEnabled(VaadinSession session) {
+        if (session.getService() == null) {
+            return false;
+        }
+        DeploymentConfiguration configuration = session.getService()
+                .getDeploymentConfiguration();
+        return configuration != null
+                && configuration.getApplicationOrSystemProperty(
+                        SpringConstants.SCOPE_SHARED_READS, false,
+                        Boolean::parseBoolean);
+    }
+
     private <T> T execute(Supplier<T> supplier) {
         if (session.hasLock()) {
             return supplier.get();
         } else {
-            session.lock();
+            SessionLocks.lock(session);
             try {
                 return supplier.get();
             } finally {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.scopes;
+
+import com.vaadin.flow.spring.SpringConstants;
+
+/**
+ * Thrown when a Vaadin scope cannot acquire the {@code VaadinSession} lock
+ * within the timeout configured via
+ * {@link SpringConstants#SCOPE_LOCK_TIMEOUT}.
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public class SessionLockTimeoutException extends IllegalStateException {
+
+    private final long timeout;
+
+    private final int queueLength;
+
+    /**
+     * Creates a new exception instance.
+     *
+     * @param timeout
+     *            the timeout in milliseconds which has elapsed
+     * @param queueLength
+     *            the estimated number of threads waiting for the same lock, or
+     *            {@code -1} if unknown
+     * @param lockDescription
+     *            the lock state description to include into the message
+     */
+    public SessionLockTimeoutException(long timeout, int queueLength,
+            String lockDescription) {
+        super(String.format(
+                "Unable to lock the VaadinSession within %d ms, "
+                        + "threads waiting for the lock: %d, lock: %s",
+                timeout, queueLength, lockDescription));
+        this.timeout = timeout;
+        this.queueLength = queueLength;
+    }
+
+    /**
+     * Gets the timeout in milliseconds which has elapsed.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the estimated number of threads which were waiting for the same
+     * session lock when the timeout has elapsed.
+     *
+     * @return the number of waiting threads, or {@code -1} if unknown
+     */
+    public int getQueueLength() {
+        return queueLength;
+    }
+}
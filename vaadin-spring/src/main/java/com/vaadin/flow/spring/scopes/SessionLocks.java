@@ -0,0 +1,97 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.scopes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.SpringConstants;
+import com.vaadin.flow.spring.SpringVaadinServletService;
+
+/**
+ * Locks {@link VaadinSession}s on behalf of the Vaadin scopes respecting the
+ * {@link SpringConstants#SCOPE_LOCK_TIMEOUT} configuration. The timeouts are
+ * counted by the service of the session (see
+ * {@link SpringVaadinServletService#getScopeLockTimeoutCount()}).
+ *
+ * @author Vaadin Ltd
+ *
+ */
+public final class SessionLocks {
+
+    private SessionLocks() {
+        // utility class
+    }
+
+    /**
+     * Locks the {@code session}, waiting at most the configured timeout.
+     * <p>
+     * The caller is responsible for calling {@link VaadinSession#unlock()}.
+     *
+     * @param session
+     *            the session to lock
+     * @throws SessionLockTimeoutException
+     *             if the lock is not acquired within the configured timeout
+     */
+    static void lock(VaadinSession session) {
+        long timeout = getTimeout(session);
+        if (timeout < 0) {
+            session.lock();
+            return;
+        }
+        Lock lock = session.getLockInstance();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while waiting for the VaadinSession lock", e);
+        }
+        if (!locked) {
+            if (session.getService() instanceof SpringVaadinServletService) {
+                ((SpringVaadinServletService) session.getService())
+                        .recordScopeLockTimeout();
+            }
+            int queueLength = lock instanceof ReentrantLock
+                    ? ((ReentrantLock) lock).getQueueLength()
+                    : -1;
+            SessionLockTimeoutException exception = new SessionLockTimeoutException(
+                    timeout, queueLength, lock.toString());
+            LoggerFactory.getLogger(SessionLocks.class)
+                    .warn(exception.getMessage());
+            throw exception;
+        }
+    }
+
+    private static long getTimeout(VaadinSession session) {
+        if (session.getService() == null) {
+            return -1;
+        }
+        DeploymentConfiguration configuration = session.getService()
+                .getDeploymentConfiguration();
+        if (configuration == null) {
+            return -1;
+        }
+        return configuration.getApplicationOrSystemProperty(
+                SpringConstants.SCOPE_LOCK_TIMEOUT, -1L, Long::parseLong);
+    }
+}
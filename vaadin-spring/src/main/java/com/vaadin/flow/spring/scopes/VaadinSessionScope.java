@@ -15,8 +15,11 @@
  */
 package com.vaadin.flow.spring.scopes;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.shared.Registration;
@@ -38,12 +41,22 @@ public class VaadinSessionScope extends AbstractScope {
 
     public static final String VAADIN_SESSION_SCOPE_NAME = "vaadin-session";
 
+    /**
+     * Bean stores which allow shared reads, available without the session
+     * lock.
+     */
+    private final Map<VaadinSession, BeanStore> sharedStores = new ConcurrentReferenceHashMap<>();
+
     private static class SessionBeanStore extends BeanStore {
 
         private final Registration sessionDestroyListenerRegistration;
 
-        private SessionBeanStore(VaadinSession session) {
+        private final transient Map<VaadinSession, BeanStore> sharedStores;
+
+        private SessionBeanStore(VaadinSession session,
+                Map<VaadinSession, BeanStore> sharedStores) {
             super(session);
+            this.sharedStores = sharedStores;
             if (session instanceof SpringVaadinSession) {
                 sessionDestroyListenerRegistration = null;
                 ((SpringVaadinSession) session)
@@ -58,6 +71,9 @@ public class VaadinSessionScope extends AbstractScope {
         Void doDestroy() {
             try {
                 getVaadinSession().setAttribute(BeanStore.class, null);
+                if (sharedStores != null) {
+                    sharedStores.remove(getVaadinSession());
+                }
                 super.doDestroy();
             } finally {
                 if (sessionDestroyListenerRegistration != null) {
@@ -68,6 +84,21 @@ public class VaadinSessionScope extends AbstractScope {
         }
     }
 
+    /**
+     * Gets the number of beans in the Vaadin session scope of the given
+     * {@code session}.
+     * <p>
+     * The caller must hold the session lock.
+     *
+     * @param session
+     *            the session to inspect, not {@code null}
+     * @return the number of beans
+     */
+    public static int getBeanCount(VaadinSession session) {
+        BeanStore beanStore = session.getAttribute(BeanStore.class);
+        return beanStore == null ? 0 : beanStore.getBeanCount();
+    }
+
     @Override
     public void postProcessBeanFactory(
             ConfigurableListableBeanFactory beanFactory) {
@@ -84,13 +115,20 @@ public class VaadinSessionScope extends AbstractScope {
     @Override
     protected BeanStore getBeanStore() {
         final VaadinSession session = getVaadinSession();
-        session.lock();
+        BeanStore sharedStore = sharedStores.get(session);
+        if (sharedStore != null) {
+            return sharedStore;
+        }
+        SessionLocks.lock(session);
         try {
             BeanStore beanStore = session.getAttribute(BeanStore.class);
             if (beanStore == null) {
-                beanStore = new SessionBeanStore(session);
+                beanStore = new SessionBeanStore(session, sharedStores);
                 session.setAttribute(BeanStore.class, beanStore);
             }
+            if (beanStore.isSharedReads()) {
+                sharedStores.put(session, beanStore);
+            }
             return beanStore;
         } finally {
             session.unlock();
@@ -15,11 +15,12 @@
  */
 package com.vaadin.flow.spring.scopes;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 import com.vaadin.flow.component.ComponentEventListener;
 import com.vaadin.flow.component.DetachEvent;
@@ -43,6 +44,12 @@ public class VaadinUIScope extends AbstractScope {
 
     public static final String VAADIN_UI_SCOPE_NAME = "vaadin-ui";
 
+    /**
+     * UI store wrappers whose bean stores allow shared reads, available
+     * without the session lock.
+     */
+    private final Map<VaadinSession, UIStoreWrapper> sharedWrappers = new ConcurrentReferenceHashMap<>();
+
     private static class UIStoreWrapper
             implements ComponentEventListener<DetachEvent> {
 
@@ -52,10 +59,14 @@ public class VaadinUIScope extends AbstractScope {
 
         private final Map<Integer, BeanStore> uiStores;
 
-        private UIStoreWrapper(VaadinSession session) {
+        private final transient Map<VaadinSession, UIStoreWrapper> sharedWrappers;
+
+        private UIStoreWrapper(VaadinSession session,
+                Map<VaadinSession, UIStoreWrapper> sharedWrappers) {
             assert session.hasLock();
-            uiStores = new HashMap<>();
+            uiStores = new ConcurrentHashMap<>();
             this.session = session;
+            this.sharedWrappers = sharedWrappers;
             if (session instanceof SpringVaadinSession) {
                 sessionDestroyListenerRegistration = null;
                 ((SpringVaadinSession) session)
@@ -86,10 +97,22 @@ public class VaadinUIScope extends AbstractScope {
             return beanStore;
         }
 
+        BeanStore getExistingBeanStore(UI ui) {
+            return uiStores.get(ui.getUIId());
+        }
+
+        int getBeanCount() {
+            return uiStores.values().stream()
+                    .mapToInt(BeanStore::getBeanCount).sum();
+        }
+
         private void destroy() {
             session.lock();
             try {
                 session.setAttribute(UIStoreWrapper.class, null);
+                if (sharedWrappers != null) {
+                    sharedWrappers.remove(session);
+                }
                 uiStores.values().forEach(BeanStore::destroy);
                 uiStores.clear();
             } finally {
@@ -102,6 +125,21 @@ public class VaadinUIScope extends AbstractScope {
 
     }
 
+    /**
+     * Gets the number of beans in the UI scopes of all the UIs of the given
+     * {@code session}.
+     * <p>
+     * The caller must hold the session lock.
+     *
+     * @param session
+     *            the session to inspect, not {@code null}
+     * @return the number of beans
+     */
+    public static int getBeanCount(VaadinSession session) {
+        UIStoreWrapper wrapper = session.getAttribute(UIStoreWrapper.class);
+        return wrapper == null ? 0 : wrapper.getBeanCount();
+    }
+
     @Override
     public void postProcessBeanFactory(
             ConfigurableListableBeanFactory beanFactory) {
@@ -119,14 +157,25 @@ public class VaadinUIScope extends AbstractScope {
     @Override
     protected BeanStore getBeanStore() {
         final VaadinSession session = getVaadinSession();
-        session.lock();
+        UIStoreWrapper sharedWrapper = sharedWrappers.get(session);
+        if (sharedWrapper != null) {
+            BeanStore beanStore = sharedWrapper.getExistingBeanStore(getUI());
+            if (beanStore != null) {
+                return beanStore;
+            }
+        }
+        SessionLocks.lock(session);
         try {
             UIStoreWrapper wrapper = session.getAttribute(UIStoreWrapper.class);
             if (wrapper == null) {
-                wrapper = new UIStoreWrapper(session);
+                wrapper = new UIStoreWrapper(session, sharedWrappers);
                 session.setAttribute(UIStoreWrapper.class, wrapper);
             }
-            return wrapper.getBeanStore(getUI());
+            BeanStore beanStore = wrapper.getBeanStore(getUI());
+            if (beanStore.isSharedReads()) {
+                sharedWrappers.put(session, wrapper);
+            }
+            return beanStore;
         } finally {
             session.unlock();
         }
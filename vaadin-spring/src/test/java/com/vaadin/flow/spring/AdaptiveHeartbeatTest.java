@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveHeartbeatTest {
+
+    @Test
+    public void computeInterval_followsLoadAboveHalf() {
+        AdaptiveHeartbeat heartbeat = new AdaptiveHeartbeat(300, 1200, 200,
+                () -> 0);
+
+        Assert.assertEquals(300, heartbeat.computeInterval(0));
+        Assert.assertEquals(300, heartbeat.computeInterval(0.5));
+        Assert.assertEquals(750, heartbeat.computeInterval(0.75));
+        Assert.assertEquals(1200, heartbeat.computeInterval(1));
+        Assert.assertEquals(1200, heartbeat.computeInterval(3));
+    }
+
+    @Test
+    public void getLoad_requestsInProgressAreCounted() {
+        AdaptiveHeartbeat heartbeat = new AdaptiveHeartbeat(300, 1200, 4,
+                () -> 0.25);
+
+        Assert.assertEquals(0.25, heartbeat.getLoad(), 0);
+        for (int i = 0; i < 3; i++) {
+            heartbeat.requestStarted();
+        }
+        Assert.assertEquals(0.75, heartbeat.getLoad(), 0);
+        heartbeat.requestEnded();
+        heartbeat.requestEnded();
+        Assert.assertEquals(0.25, heartbeat.getLoad(), 0);
+    }
+
+    @Test
+    public void getInterval_fullLoad_maxInterval() {
+        AdaptiveHeartbeat heartbeat = new AdaptiveHeartbeat(300, 1200, 200,
+                () -> 2);
+
+        Assert.assertEquals(1200, heartbeat.getInterval());
+        Assert.assertEquals(1200, heartbeat.getMaxInterval());
+    }
+
+    @Test
+    public void maxIntervalBelowBaseInterval_baseIntervalIsUsed() {
+        AdaptiveHeartbeat heartbeat = new AdaptiveHeartbeat(300, 100, 200,
+                () -> 2);
+
+        Assert.assertEquals(300, heartbeat.getInterval());
+        Assert.assertEquals(300, heartbeat.getMaxInterval());
+    }
+
+    @Test
+    public void heartbeatDisabled_staysDisabledUnderLoad() {
+        AdaptiveHeartbeat heartbeat = new AdaptiveHeartbeat(-1, 1200, 200,
+                () -> 2);
+
+        Assert.assertEquals(-1, heartbeat.getInterval());
+        Assert.assertEquals(-1, heartbeat.getMaxInterval());
+    }
+}
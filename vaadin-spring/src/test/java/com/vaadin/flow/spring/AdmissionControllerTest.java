@@ -0,0 +1,128 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void parseLimits_limitsByTypeTag() {
+        Map<VaadinRequestType, Integer> limits = AdmissionController
+                .parseLimits(" uidl=32, heartbeat = 8,static-resource=64,");
+
+        Assert.assertEquals(3, limits.size());
+        Assert.assertEquals(Integer.valueOf(32),
+                limits.get(VaadinRequestType.UIDL));
+        Assert.assertEquals(Integer.valueOf(8),
+                limits.get(VaadinRequestType.HEARTBEAT));
+        Assert.assertEquals(Integer.valueOf(64),
+                limits.get(VaadinRequestType.STATIC_RESOURCE));
+        Assert.assertTrue(AdmissionController.parseLimits("").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseLimits_unknownType_throws() {
+        AdmissionController.parseLimits("foo=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseLimits_nonPositiveLimit_throws() {
+        AdmissionController.parseLimits("uidl=0");
+    }
+
+    @Test
+    public void admit_typeWithoutLimit_alwaysAdmitted() {
+        AdmissionController controller = new AdmissionController(
+                AdmissionController.parseLimits("uidl=1"), 0, 0);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(controller.admit(VaadinRequestType.HEARTBEAT));
+        }
+    }
+
+    @Test
+    public void admit_limitReachedWithoutQueue_requestIsShed() {
+        AdmissionController controller = new AdmissionController(
+                AdmissionController.parseLimits("uidl=1,heartbeat=1"), 0, 0);
+
+        Assert.assertTrue(controller.admit(VaadinRequestType.UIDL));
+        Assert.assertFalse(controller.admit(VaadinRequestType.UIDL));
+        // Heartbeats have their own budget
+        Assert.assertTrue(controller.admit(VaadinRequestType.HEARTBEAT));
+
+        controller.release(VaadinRequestType.UIDL);
+        Assert.assertTrue(controller.admit(VaadinRequestType.UIDL));
+
+        AdmissionController.Budget budget = controller.getBudgets()
+                .get(VaadinRequestType.UIDL);
+        Assert.assertEquals(2, budget.getAdmittedCount());
+        Assert.assertEquals(1, budget.getShedCount());
+        Assert.assertEquals(0, budget.getQueuedCount());
+        Assert.assertEquals(1, budget.getActiveCount());
+    }
+
+    @Test
+    public void admit_limitReached_queuedRequestIsAdmittedOnRelease()
+            throws InterruptedException {
+        AdmissionController controller = new AdmissionController(
+                AdmissionController.parseLimits("uidl=1"), 1,
+                TimeUnit.SECONDS.toMillis(10));
+        Assert.assertTrue(controller.admit(VaadinRequestType.UIDL));
+
+        AtomicBoolean admitted = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            admitted.set(controller.admit(VaadinRequestType.UIDL));
+            done.countDown();
+        });
+        thread.start();
+        AdmissionController.Budget budget = controller.getBudgets()
+                .get(VaadinRequestType.UIDL);
+        while (budget.getWaitingCount() == 0) {
+            Thread.sleep(1);
+        }
+        // The queue is full
+        Assert.assertFalse(controller.admit(VaadinRequestType.UIDL));
+
+        controller.release(VaadinRequestType.UIDL);
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(admitted.get());
+        Assert.assertEquals(1, budget.getQueuedCount());
+        Assert.assertEquals(1, budget.getShedCount());
+    }
+
+    @Test
+    public void admit_queueTimeout_requestIsShed() {
+        AdmissionController controller = new AdmissionController(
+                AdmissionController.parseLimits("uidl=1"), 1, 1);
+        Assert.assertTrue(controller.admit(VaadinRequestType.UIDL));
+
+        Assert.assertFalse(controller.admit(VaadinRequestType.UIDL));
+
+        AdmissionController.Budget budget = controller.getBudgets()
+                .get(VaadinRequestType.UIDL);
+        Assert.assertEquals(1, budget.getQueuedCount());
+        Assert.assertEquals(1, budget.getShedCount());
+        Assert.assertEquals(0, budget.getWaitingCount());
+    }
+}
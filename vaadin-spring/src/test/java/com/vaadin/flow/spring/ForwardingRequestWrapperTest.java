@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class ForwardingRequestWrapperTest {
+
+    @Test
+    public void forwardedRequest_pathInfoIsPathWithinApplication() {
+        ForwardingRequestWrapper wrapper = new ForwardingRequestWrapper(
+                createRequest("/foo/bar", null));
+
+        Assert.assertEquals("", wrapper.getServletPath());
+        Assert.assertEquals("/foo/bar", wrapper.getPathInfo());
+    }
+
+    @Test
+    public void forwardedRequest_pathInfoIsComputedOnce() {
+        ForwardingRequestWrapper wrapper = new ForwardingRequestWrapper(
+                createRequest("/foo/bar", null));
+
+        Assert.assertSame(wrapper.getPathInfo(), wrapper.getPathInfo());
+    }
+
+    @Test
+    public void requestWithPathInfo_pathsAreNotChanged() {
+        ForwardingRequestWrapper wrapper = new ForwardingRequestWrapper(
+                createRequest("/foo", "/bar"));
+
+        Assert.assertEquals("/foo", wrapper.getServletPath());
+        Assert.assertEquals("/bar", wrapper.getPathInfo());
+    }
+
+    private static MockHttpServletRequest createRequest(String servletPath,
+            String pathInfo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                "/ctx" + servletPath + (pathInfo == null ? "" : pathInfo));
+        request.setContextPath("/ctx");
+        request.setServletPath(servletPath);
+        request.setPathInfo(pathInfo);
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.shared.ApplicationConstants;
+
+public class HeartbeatFastPathTest {
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+
+    private final TestSession session = new TestSession(service);
+
+    private final VaadinRequest request = Mockito.mock(VaadinRequest.class);
+
+    private final VaadinResponse response = Mockito
+            .mock(VaadinResponse.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private static class TestSession extends SpringVaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private TestSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    @After
+    public void releaseLock() {
+        release.countDown();
+    }
+
+    @Test
+    public void handle_lockIsFree_regularPathIsUsed() {
+        Mockito.when(request.getParameter(ApplicationConstants.UI_ID_PARAMETER))
+                .thenReturn("1");
+
+        Assert.assertFalse(
+                HeartbeatFastPath.handle(session, request, response));
+        Mockito.verify(service, Mockito.never()).accessSession(
+                Mockito.any(), Mockito.any(Command.class));
+    }
+
+    @Test
+    public void handle_lockIsHeldByOtherThread_heartbeatIsRecordedOnUnlock()
+            throws InterruptedException {
+        Mockito.when(request.getParameter(ApplicationConstants.UI_ID_PARAMETER))
+                .thenReturn("1");
+        holdLockInOtherThread();
+
+        Assert.assertTrue(
+                HeartbeatFastPath.handle(session, request, response));
+        Mockito.verify(service).accessSession(Mockito.eq(session),
+                Mockito.any(Command.class));
+        Mockito.verify(response).setHeader("Cache-Control", "no-cache");
+    }
+
+    @Test
+    public void handle_invalidUIId_regularPathIsUsed()
+            throws InterruptedException {
+        Mockito.when(request.getParameter(ApplicationConstants.UI_ID_PARAMETER))
+                .thenReturn("foo");
+        holdLockInOtherThread();
+
+        Assert.assertFalse(
+                HeartbeatFastPath.handle(session, request, response));
+    }
+
+    private void holdLockInOtherThread() throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            session.lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                session.lock.unlock();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        Assert.assertTrue(locked.await(10, TimeUnit.SECONDS));
+    }
+}
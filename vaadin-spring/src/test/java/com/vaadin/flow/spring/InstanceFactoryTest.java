@@ -0,0 +1,219 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.aop.framework.autoproxy.DefaultAdvisorAutoProxyCreator;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.NameMatchMethodPointcutAdvisor;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
+
+public class InstanceFactoryTest {
+
+    public static class Service {
+    }
+
+    public static class PlainTarget {
+
+        private final Service service;
+
+        public PlainTarget(Service service) {
+            this.service = service;
+        }
+    }
+
+    public static class AdvisedTarget {
+
+        public String greet() {
+            return "hello";
+        }
+    }
+
+    /**
+     * Post processors of a typical Spring Boot web application.
+     */
+    @Configuration
+    public static class BootLikeConfiguration {
+
+        @Bean
+        public static MethodValidationPostProcessor methodValidationPostProcessor() {
+            return new MethodValidationPostProcessor();
+        }
+
+        @Bean
+        public static DefaultAdvisorAutoProxyCreator autoProxyCreator() {
+            return new DefaultAdvisorAutoProxyCreator();
+        }
+
+        @Bean
+        public NameMatchMethodPointcutAdvisor greetAdvisor() {
+            NameMatchMethodPointcutAdvisor advisor = new NameMatchMethodPointcutAdvisor(
+                    (MethodInterceptor) invocation -> "advised "
+                            + invocation.proceed());
+            advisor.setMappedName("greet");
+            advisor.setClassFilter(AdvisedTarget.class::equals);
+            return advisor;
+        }
+
+        @Bean
+        public Service service() {
+            return new Service();
+        }
+    }
+
+    public static class AutowiredTarget {
+
+        @Autowired
+        private Service service;
+    }
+
+    @Test
+    public void create_plainClass_dependencyIsInjected() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        Service service = new Service();
+        beanFactory.registerSingleton("service", service);
+
+        InstanceFactory factory = InstanceFactory.create(PlainTarget.class,
+                beanFactory);
+
+        Assert.assertNotNull(factory);
+        PlainTarget target = (PlainTarget) factory.create();
+        Assert.assertSame(service, target.service);
+        Assert.assertNotSame(target, factory.create());
+    }
+
+    @Test
+    public void create_injectionAnnotations_noFactory() {
+        Assert.assertNull(InstanceFactory.create(AutowiredTarget.class,
+                new DefaultListableBeanFactory()));
+    }
+
+    @Test
+    public void create_beanPostProcessor_isApplied() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("service", new Service());
+        Service replacement = new Service();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean,
+                    String beanName) {
+                return bean instanceof PlainTarget
+                        ? new PlainTarget(replacement)
+                        : bean;
+            }
+        });
+
+        InstanceFactory factory = InstanceFactory.create(PlainTarget.class,
+                beanFactory);
+
+        Assert.assertNotNull(factory);
+        Assert.assertSame(replacement,
+                ((PlainTarget) factory.create()).service);
+    }
+
+    @Test
+    public void create_instantiationAwareBeanPostProcessor_populationPhaseIsApplied() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("service", new Service());
+        List<Object> populated = new ArrayList<>();
+        beanFactory.addBeanPostProcessor(
+                new InstantiationAwareBeanPostProcessor() {
+                    @Override
+                    public PropertyValues postProcessProperties(
+                            PropertyValues pvs, Object bean,
+                            String beanName) {
+                        populated.add(bean);
+                        return pvs;
+                    }
+                });
+
+        InstanceFactory factory = InstanceFactory.create(PlainTarget.class,
+                beanFactory);
+
+        Assert.assertNotNull(factory);
+        Object instance = factory.create();
+        Assert.assertEquals(1, populated.size());
+        Assert.assertSame(instance, populated.get(0));
+    }
+
+    @Test
+    public void create_beforeInitializationReturnsNull_afterInitializationIsApplied() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("service", new Service());
+        Service replacement = new Service();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean,
+                    String beanName) {
+                return null;
+            }
+        });
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean,
+                    String beanName) {
+                return bean instanceof PlainTarget
+                        ? new PlainTarget(replacement)
+                        : bean;
+            }
+        });
+
+        InstanceFactory factory = InstanceFactory.create(PlainTarget.class,
+                beanFactory);
+
+        Assert.assertSame(replacement,
+                ((PlainTarget) factory.create()).service);
+    }
+
+    @Test
+    public void create_bootLikeContext_factoryIsUsedAndAdviceApplied() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+                BootLikeConfiguration.class)) {
+            InstanceFactory plainFactory = InstanceFactory
+                    .create(PlainTarget.class, context.getBeanFactory());
+            InstanceFactory advisedFactory = InstanceFactory
+                    .create(AdvisedTarget.class, context.getBeanFactory());
+
+            Assert.assertNotNull(plainFactory);
+            Assert.assertNotNull(advisedFactory);
+
+            Object plain = plainFactory.create();
+            Assert.assertFalse(AopUtils.isAopProxy(plain));
+            Assert.assertSame(context.getBean(Service.class),
+                    ((PlainTarget) plain).service);
+
+            AdvisedTarget advised = (AdvisedTarget) advisedFactory.create();
+            Assert.assertTrue(AopUtils.isAopProxy(advised));
+            Assert.assertEquals("advised hello", advised.greet());
+            Assert.assertEquals("advised hello",
+                    ((AdvisedTarget) context.getAutowireCapableBeanFactory()
+                            .createBean(AdvisedTarget.class)).greet());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.di.Instantiator;
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.RouteRegistry;
+import com.vaadin.flow.spring.i18n.CachingI18NProvider;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MicrometerRequestMetricsTest {
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MicrometerRequestMetrics metrics;
+
+    @Before
+    public void setUp() {
+        RouteRegistry routeRegistry = Mockito.mock(RouteRegistry.class);
+        Mockito.doReturn(Optional.empty()).when(routeRegistry)
+                .getNavigationTarget(Mockito.anyString());
+        Mockito.doReturn(Optional.of(Div.class)).when(routeRegistry)
+                .getNavigationTarget("about");
+        Mockito.doReturn(Optional.of("about")).when(routeRegistry)
+                .getTargetUrl(Div.class);
+        metrics = new MicrometerRequestMetrics(registry, routeRegistry);
+    }
+
+    @Test
+    public void record_bootstrapRequest_routeTemplateIsTagged() {
+        metrics.record(createRequest("/about"), new MockHttpServletResponse(),
+                VaadinRequestType.BOOTSTRAP, false,
+                TimeUnit.MILLISECONDS.toNanos(5));
+
+        Timer timer = registry.get(MicrometerRequestMetrics.METER_NAME)
+                .tag("type", "bootstrap").tag("status", "200")
+                .tag("route", "/about").timer();
+        Assert.assertEquals(1, timer.count());
+        Assert.assertEquals(5, timer.totalTime(TimeUnit.MILLISECONDS), 0.01);
+    }
+
+    @Test
+    public void record_unknownRoute_unmatchedIsTagged() {
+        metrics.record(createRequest("/foo/bar"),
+                new MockHttpServletResponse(), VaadinRequestType.BOOTSTRAP,
+                false, 1);
+
+        Assert.assertNotNull(registry.get(MicrometerRequestMetrics.METER_NAME)
+                .tag("route", MicrometerRequestMetrics.UNMATCHED_ROUTE)
+                .timer());
+    }
+
+    @Test
+    public void record_failedRequest_errorIsTagged() {
+        metrics.record(createRequest("/"), new MockHttpServletResponse(),
+                VaadinRequestType.UIDL, true, 1);
+
+        Assert.assertEquals(1, registry.get(MicrometerRequestMetrics.METER_NAME)
+                .tag("type", "error").tag("status", "500")
+                .tag("route", MicrometerRequestMetrics.NO_ROUTE).timer()
+                .count());
+    }
+
+    @Test
+    public void record_sameTags_timerIsReused() {
+        for (int i = 0; i < 3; i++) {
+            metrics.record(createRequest("/about"),
+                    new MockHttpServletResponse(), VaadinRequestType.BOOTSTRAP,
+                    false, 1);
+        }
+        metrics.record(createRequest("/"), new MockHttpServletResponse(),
+                VaadinRequestType.UIDL, false, 1);
+
+        Assert.assertEquals(2, registry.get(MicrometerRequestMetrics.METER_NAME)
+                .timers().size());
+        Assert.assertEquals(3, registry.get(MicrometerRequestMetrics.METER_NAME)
+                .tag("route", "/about").timer().count());
+    }
+
+    @Test
+    public void bind_service_scopeLockTimeoutsAreReported() {
+        SpringVaadinServletService service = mockService(0);
+        Mockito.when(service.getScopeLockTimeoutCount()).thenReturn(3L);
+
+        metrics.bind(service);
+
+        Assert.assertEquals(3, registry
+                .get(MicrometerRequestMetrics.SCOPE_LOCK_TIMEOUTS_METER_NAME)
+                .functionCounter().count(), 0);
+    }
+
+    @Test
+    public void bind_service_resourceCachesAreReported() {
+        SpringVaadinServletService service = mockService(0);
+        Mockito.when(service.getResourceCacheHitCount()).thenReturn(7L);
+        Mockito.when(service.getResourceCacheMissCount()).thenReturn(2L);
+        Mockito.when(service.getResourceBytesCacheEvictionCount())
+                .thenReturn(4L);
+        Mockito.when(service.getResourceBytesCacheUsedBytes())
+                .thenReturn(1024L);
+
+        metrics.bind(service);
+
+        Assert.assertEquals(7, getCacheGets(
+                MicrometerRequestMetrics.STATIC_RESOURCE_CACHE, "hit"), 0);
+        Assert.assertEquals(2, getCacheGets(
+                MicrometerRequestMetrics.STATIC_RESOURCE_CACHE, "miss"), 0);
+        Assert.assertEquals(4, registry
+                .get(MicrometerRequestMetrics.CACHE_EVICTIONS_METER_NAME)
+                .tag("cache", MicrometerRequestMetrics.RESOURCE_BYTES_CACHE)
+                .functionCounter().count(), 0);
+        Assert.assertEquals(1024, registry
+                .get(MicrometerRequestMetrics.CACHE_SIZE_METER_NAME)
+                .tag("cache", MicrometerRequestMetrics.RESOURCE_BYTES_CACHE)
+                .gauge().value(), 0);
+        Assert.assertNull(registry
+                .find(MicrometerRequestMetrics.CACHE_GETS_METER_NAME)
+                .tag("cache", MicrometerRequestMetrics.I18N_CACHE)
+                .functionCounter());
+    }
+
+    @Test
+    public void bind_serviceWithI18NCache_translationCacheIsReported() {
+        SpringVaadinServletService service = mockService(10);
+        CachingI18NProvider provider = Mockito.mock(CachingI18NProvider.class);
+        Mockito.when(provider.getHitCount()).thenReturn(5L);
+        Mockito.when(provider.getMissCount()).thenReturn(1L);
+        Instantiator instantiator = Mockito.mock(Instantiator.class);
+        Mockito.when(instantiator.getI18NProvider()).thenReturn(provider);
+        Mockito.when(service.getInstantiator()).thenReturn(instantiator);
+
+        metrics.bind(service);
+
+        Assert.assertEquals(5,
+                getCacheGets(MicrometerRequestMetrics.I18N_CACHE, "hit"), 0);
+        Assert.assertEquals(1,
+                getCacheGets(MicrometerRequestMetrics.I18N_CACHE, "miss"), 0);
+    }
+
+    private double getCacheGets(String cache, String result) {
+        return registry.get(MicrometerRequestMetrics.CACHE_GETS_METER_NAME)
+                .tag("cache", cache).tag("result", result).functionCounter()
+                .count();
+    }
+
+    private static SpringVaadinServletService mockService(int i18nCacheSize) {
+        DeploymentConfiguration configuration = Mockito
+                .mock(DeploymentConfiguration.class);
+        Mockito.when(configuration.getApplicationOrSystemProperty(
+                Mockito.eq(SpringConstants.I18N_CACHE_SIZE), Mockito.any(),
+                Mockito.any())).thenReturn(i18nCacheSize);
+        SpringVaadinServletService service = Mockito
+                .mock(SpringVaadinServletService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+        return service;
+    }
+
+    private static MockHttpServletRequest createRequest(String pathInfo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                pathInfo);
+        request.setPathInfo(pathInfo);
+        return request;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+public class PrecompressedResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PrecompressedResourceCache cache = new PrecompressedResourceCache(
+            9, 1024 * 1024, path -> null);
+
+    @After
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    public void isCompressible() {
+        Assert.assertTrue(PrecompressedResourceCache.isCompressible("/a.js"));
+        Assert.assertTrue(
+                PrecompressedResourceCache.isCompressible("/frontend/a.CSS"));
+        Assert.assertFalse(
+                PrecompressedResourceCache.isCompressible("/img/a.png"));
+        Assert.assertFalse(
+                PrecompressedResourceCache.isCompressible("/dir.js/file"));
+    }
+
+    @Test
+    public void compressAll_resourceIsServedCompressed()
+            throws IOException, InterruptedException {
+        String content = String.join("",
+                Collections.nCopies(100, "console.log('foo');\n"));
+        URL url = createFile("app.js", content);
+
+        cache.compressAll(Collections.singletonMap("app.js", url));
+        PrecompressedResourceCache.Entry entry = await("/app.js", url);
+
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(content, decompress(entry.getContent()));
+        Assert.assertTrue(entry.getETag().endsWith("-gzip\""));
+        Assert.assertTrue(cache.getUsedBytes() > 0);
+        Assert.assertTrue(cache.getUsedBytes() < content.length());
+    }
+
+    @Test
+    public void get_smallResource_notCached()
+            throws IOException, InterruptedException {
+        URL url = createFile("small.js", "foo();");
+
+        Assert.assertNull(cache.get("/small.js", url));
+        Assert.assertNull(await("/small.js", url));
+        Assert.assertEquals(0, cache.getUsedBytes());
+    }
+
+    private PrecompressedResourceCache.Entry await(String path, URL url)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            PrecompressedResourceCache.Entry entry = cache.get(path, url);
+            if (entry != null) {
+                return entry;
+            }
+            Thread.sleep(20);
+        }
+        return null;
+    }
+
+    private URL createFile(String name, String content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.toURI().toURL();
+    }
+
+    private static String decompress(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (InputStream stream = new GZIPInputStream(
+                new ByteArrayInputStream(bytes))) {
+            return StreamUtils.copyToString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
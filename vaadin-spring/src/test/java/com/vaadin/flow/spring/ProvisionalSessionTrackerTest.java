@@ -0,0 +1,136 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.WrappedSession;
+
+public class ProvisionalSessionTrackerTest {
+
+    private static final long TIMEOUT = 60000;
+
+    private static final String ATTRIBUTE_NAME = "com.vaadin.flow.server.VaadinSession.springServlet";
+
+    private static class TestSession extends SpringVaadinSession {
+
+        private final WrappedSession wrappedSession = Mockito
+                .mock(WrappedSession.class);
+
+        private TestSession() {
+            super(Mockito.mock(VaadinService.class));
+        }
+
+        @Override
+        public WrappedSession getSession() {
+            return wrappedSession;
+        }
+    }
+
+    private final ProvisionalSessionTracker tracker = new ProvisionalSessionTracker(
+            TIMEOUT, ATTRIBUTE_NAME);
+
+    @Test
+    public void track_sessionIsProvisional() {
+        TestSession session = new TestSession();
+
+        tracker.track(session);
+
+        Assert.assertTrue(session.isProvisional());
+        Assert.assertEquals(1, tracker.size());
+    }
+
+    @Test
+    public void expire_beforeTimeout_sessionIsKept() {
+        TestSession session = new TestSession();
+        tracker.track(session);
+
+        Assert.assertEquals(0, tracker.expire(System.currentTimeMillis()));
+        Mockito.verify(session.wrappedSession, Mockito.never()).invalidate();
+    }
+
+    @Test
+    public void expire_afterTimeout_provisionalSessionIsInvalidated() {
+        TestSession session = new TestSession();
+        tracker.track(session);
+
+        Assert.assertEquals(1, tracker
+                .expire(System.currentTimeMillis() + TIMEOUT + 1));
+        Mockito.verify(session.wrappedSession).invalidate();
+        Assert.assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void expire_afterTimeoutWithVaadinAttributesOnly_httpSessionIsInvalidated() {
+        TestSession session = new TestSession();
+        Mockito.when(session.wrappedSession.getAttributeNames())
+                .thenReturn(new HashSet<>(Arrays.asList(ATTRIBUTE_NAME,
+                        ATTRIBUTE_NAME + ".lock")));
+        tracker.track(session);
+
+        Assert.assertEquals(1, tracker
+                .expire(System.currentTimeMillis() + TIMEOUT + 1));
+        Mockito.verify(session.wrappedSession).invalidate();
+    }
+
+    @Test
+    public void expire_afterTimeoutWithOtherAttributes_onlyVaadinSessionIsRemoved() {
+        TestSession session = new TestSession();
+        Mockito.when(session.wrappedSession.getAttributeNames())
+                .thenReturn(new HashSet<>(Arrays.asList(ATTRIBUTE_NAME,
+                        "SPRING_SECURITY_CONTEXT")));
+        tracker.track(session);
+
+        Assert.assertEquals(1, tracker
+                .expire(System.currentTimeMillis() + TIMEOUT + 1));
+        Mockito.verify(session.wrappedSession, Mockito.never()).invalidate();
+        Mockito.verify(session.wrappedSession)
+                .removeAttribute(ATTRIBUTE_NAME);
+    }
+
+    @Test
+    public void expire_afterTimeout_confirmedSessionIsKept() {
+        TestSession confirmed = new TestSession();
+        TestSession provisional = new TestSession();
+        tracker.track(confirmed);
+        tracker.track(provisional);
+        confirmed.setProvisional(false);
+
+        Assert.assertEquals(1, tracker
+                .expire(System.currentTimeMillis() + TIMEOUT + 1));
+        Mockito.verify(confirmed.wrappedSession, Mockito.never())
+                .invalidate();
+        Mockito.verify(provisional.wrappedSession).invalidate();
+    }
+
+    @Test
+    public void expire_sessionAlreadyInvalidated_notCounted() {
+        TestSession session = new TestSession();
+        Mockito.doThrow(IllegalStateException.class)
+                .when(session.wrappedSession).invalidate();
+        tracker.track(session);
+
+        Assert.assertEquals(0, tracker
+                .expire(System.currentTimeMillis() + TIMEOUT + 1));
+        Assert.assertEquals(0, tracker.size());
+    }
+}
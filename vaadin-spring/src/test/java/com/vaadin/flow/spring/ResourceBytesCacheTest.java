@@ -0,0 +1,112 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+public class ResourceBytesCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File jar;
+
+    @Before
+    public void setUp() throws IOException {
+        jar = temporaryFolder.newFile("resources.jar");
+        try (JarOutputStream out = new JarOutputStream(
+                new FileOutputStream(jar))) {
+            for (String name : Arrays.asList("a", "b", "c", "d", "e")) {
+                out.putNextEntry(new JarEntry(name + ".js"));
+                byte[] content = new byte[100];
+                Arrays.fill(content, (byte) name.charAt(0));
+                out.write(content);
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry("large.js"));
+            out.write(new byte[200]);
+            out.closeEntry();
+        }
+    }
+
+    @Test
+    public void openStream_secondRead_contentIsCached() throws IOException {
+        ResourceBytesCache cache = new ResourceBytesCache(1000);
+
+        byte[] first = read(cache, "a.js");
+        byte[] second = read(cache, "a.js");
+
+        Assert.assertArrayEquals(first, second);
+        Assert.assertEquals(100, second.length);
+        Assert.assertEquals('a', second[0]);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(100, cache.getUsedBytes());
+    }
+
+    @Test
+    public void openStream_cacheIsFull_leastRecentlyUsedIsEvicted()
+            throws IOException {
+        ResourceBytesCache cache = new ResourceBytesCache(400);
+
+        read(cache, "a.js");
+        read(cache, "b.js");
+        read(cache, "c.js");
+        read(cache, "d.js");
+        // a.js becomes the most recently used
+        read(cache, "a.js");
+        read(cache, "e.js");
+
+        Assert.assertEquals(400, cache.getUsedBytes());
+        Assert.assertEquals(1, cache.getEvictionCount());
+
+        read(cache, "a.js");
+        Assert.assertEquals(2, cache.getHitCount());
+        read(cache, "b.js");
+        Assert.assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void openStream_largeResource_notCached() throws IOException {
+        ResourceBytesCache cache = new ResourceBytesCache(400);
+
+        Assert.assertEquals(200, read(cache, "large.js").length);
+
+        Assert.assertEquals(0, cache.getUsedBytes());
+    }
+
+    private byte[] read(ResourceBytesCache cache, String entry)
+            throws IOException {
+        URL url = new URL("jar:" + jar.toURI().toURL() + "!/" + entry);
+        try (InputStream stream = cache.openStream(url)) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockServletContext;
+
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.di.Instantiator;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.startup.ApplicationRouteRegistry;
+
+public class RouteTargetWarmUpTest {
+
+    private final SpringServlet servlet = Mockito.mock(SpringServlet.class);
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+
+    private final Instantiator instantiator = Mockito
+            .mock(Instantiator.class);
+
+    public static class TestView extends Div {
+    }
+
+    @Before
+    public void setUp() {
+        MockServletContext servletContext = new MockServletContext();
+        ApplicationRouteRegistry.getInstance(servletContext).setRoute("",
+                TestView.class, Collections.emptyList());
+        Mockito.when(servlet.getServletContext()).thenReturn(servletContext);
+        Mockito.when(service.getInstantiator()).thenReturn(instantiator);
+    }
+
+    @Test
+    public void run_targetsAreInstantiatedOnce() {
+        Mockito.when(servlet.getService()).thenReturn(service);
+
+        RouteTargetWarmUp warmUp = new RouteTargetWarmUp(servlet, 2);
+        warmUp.run();
+        warmUp.run();
+
+        Mockito.verify(instantiator, Mockito.times(2))
+                .createRouteTarget(TestView.class, null);
+    }
+
+    @Test
+    public void run_servletNotInitialized_warmUpIsSkipped() {
+        new RouteTargetWarmUp(servlet, 1).run();
+
+        Mockito.verify(instantiator, Mockito.never()).createRouteTarget(
+                Mockito.any(), Mockito.any());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.Constants;
+import com.vaadin.flow.server.DefaultDeploymentConfiguration;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.WrappedSession;
+
+public class SessionCapacityGuardTest {
+
+    private static final long IDLE_MILLIS = 60000;
+
+    private static final String ATTRIBUTE_NAME = "com.vaadin.flow.server.VaadinSession.springServlet";
+
+    private final VaadinSessionRegistry registry = new VaadinSessionRegistry();
+
+    private class TestSession extends SpringVaadinSession {
+
+        private final long lastRequestTimestamp;
+
+        private final WrappedSession wrappedSession = Mockito
+                .mock(WrappedSession.class);
+
+        private TestSession(long idleMillis) {
+            super(Mockito.mock(VaadinService.class));
+            lastRequestTimestamp = System.currentTimeMillis() - idleMillis;
+            Mockito.doAnswer(invocation -> {
+                registry.unregister(this);
+                return null;
+            }).when(wrappedSession).invalidate();
+            Mockito.when(wrappedSession.getAttributeNames())
+                    .thenReturn(Collections.singleton(ATTRIBUTE_NAME));
+            registry.register(this);
+        }
+
+        @Override
+        public long getLastRequestTimestamp() {
+            return lastRequestTimestamp;
+        }
+
+        @Override
+        public WrappedSession getSession() {
+            return wrappedSession;
+        }
+    }
+
+    @Test
+    public void admit_belowSessionLimit_admitted() {
+        new TestSession(0);
+
+        Assert.assertTrue(guard(2, 0, false).admit(registry));
+    }
+
+    @Test
+    public void admit_sessionLimitReached_rejected() {
+        TestSession idle = new TestSession(2 * IDLE_MILLIS);
+        new TestSession(0);
+
+        Assert.assertFalse(guard(2, 0, false).admit(registry));
+        Mockito.verify(idle.wrappedSession, Mockito.never()).invalidate();
+    }
+
+    @Test
+    public void admit_sessionLimitReachedWithEviction_leastRecentlyActiveIdleSessionIsEvicted() {
+        TestSession idle = new TestSession(2 * IDLE_MILLIS);
+        TestSession oldest = new TestSession(3 * IDLE_MILLIS);
+        TestSession active = new TestSession(0);
+
+        Assert.assertTrue(guard(3, 0, true).admit(registry));
+        Assert.assertEquals(2, registry.getSessionCount());
+        Mockito.verify(oldest.wrappedSession).invalidate();
+        Mockito.verify(idle.wrappedSession, Mockito.never()).invalidate();
+        Mockito.verify(active.wrappedSession, Mockito.never()).invalidate();
+    }
+
+    @Test
+    public void admit_sessionLimitReachedWithEviction_sharedHttpSessionIsKept() {
+        TestSession idle = new TestSession(2 * IDLE_MILLIS);
+        Mockito.when(idle.wrappedSession.getAttributeNames())
+                .thenReturn(new HashSet<>(Arrays.asList(ATTRIBUTE_NAME,
+                        "SPRING_SECURITY_CONTEXT")));
+        new TestSession(0);
+
+        Assert.assertTrue(guard(2, 0, true).admit(registry));
+        Assert.assertEquals(1, registry.getSessionCount());
+        Mockito.verify(idle.wrappedSession, Mockito.never()).invalidate();
+        Mockito.verify(idle.wrappedSession).removeAttribute(ATTRIBUTE_NAME);
+    }
+
+    @Test
+    public void admit_sessionLimitReachedWithoutIdleSessions_rejected() {
+        TestSession active = new TestSession(0);
+
+        Assert.assertFalse(guard(1, 0, true).admit(registry));
+        Mockito.verify(active.wrappedSession, Mockito.never()).invalidate();
+    }
+
+    @Test
+    public void admit_heapLimitReached_rejected() {
+        new TestSession(0);
+
+        Assert.assertFalse(new SessionCapacityGuard(0, 0.8, false,
+                IDLE_MILLIS, ATTRIBUTE_NAME, () -> 0.9, () -> 1)
+                        .admit(registry));
+        Assert.assertTrue(new SessionCapacityGuard(0, 0.8, false,
+                IDLE_MILLIS, ATTRIBUTE_NAME, () -> 0.7, () -> 1)
+                        .admit(registry));
+    }
+
+    @Test
+    public void admit_heapLimitReachedWithEviction_heapIsNotCheckedUntilNextGc() {
+        for (int i = 0; i < 10; i++) {
+            new TestSession(2 * IDLE_MILLIS);
+        }
+        AtomicLong gcCount = new AtomicLong();
+        SessionCapacityGuard guard = new SessionCapacityGuard(0, 0.5, true,
+                IDLE_MILLIS, ATTRIBUTE_NAME, () -> 0.6, gcCount::get);
+
+        Assert.assertTrue(guard.admit(registry));
+        // ceil(10 * (0.6 - 0.5) / 0.6) + 1 sessions
+        Assert.assertEquals(7, registry.getSessionCount());
+
+        Assert.assertTrue(guard.admit(registry));
+        Assert.assertEquals(7, registry.getSessionCount());
+
+        gcCount.incrementAndGet();
+        Assert.assertTrue(guard.admit(registry));
+        Assert.assertEquals(4, registry.getSessionCount());
+    }
+
+    @Test
+    public void admit_heapLimit_heapIsReadOncePerGc() {
+        new TestSession(0);
+        AtomicLong gcCount = new AtomicLong();
+        AtomicInteger reads = new AtomicInteger();
+        SessionCapacityGuard guard = new SessionCapacityGuard(0, 0.8, false,
+                IDLE_MILLIS, ATTRIBUTE_NAME, () -> {
+                    reads.incrementAndGet();
+                    return 0.5;
+                }, gcCount::get);
+
+        guard.admit(registry);
+        guard.admit(registry);
+        Assert.assertEquals(1, reads.get());
+
+        gcCount.incrementAndGet();
+        guard.admit(registry);
+        Assert.assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void getIdleTime_notSet_derivedFromHeartbeatInterval() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+                "300");
+
+        Assert.assertEquals(
+                3 * 300 + SpringConstants.PROVISIONAL_SESSION_GRACE_TIME,
+                SessionCapacityGuard.getIdleTime(
+                        new DefaultDeploymentConfiguration(getClass(),
+                                properties)));
+    }
+
+    @Test
+    public void getIdleTime_lowerThanHeartbeats_raised() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+                "60");
+        properties.setProperty(SpringConstants.SESSION_EVICTION_IDLE_TIME,
+                "100");
+
+        Assert.assertEquals(
+                3 * 60 + SpringConstants.PROVISIONAL_SESSION_GRACE_TIME,
+                SessionCapacityGuard.getIdleTime(
+                        new DefaultDeploymentConfiguration(getClass(),
+                                properties)));
+
+        properties.setProperty(SpringConstants.SESSION_EVICTION_IDLE_TIME,
+                "1000");
+        Assert.assertEquals(1000, SessionCapacityGuard.getIdleTime(
+                new DefaultDeploymentConfiguration(getClass(), properties)));
+    }
+
+    @Test
+    public void getIdleTime_adaptiveHeartbeat_derivedFromMaxInterval() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+                "60");
+        properties.setProperty(
+                SpringConstants.ADAPTIVE_HEARTBEAT_MAX_INTERVAL, "240");
+
+        Assert.assertEquals(
+                3 * 240 + SpringConstants.PROVISIONAL_SESSION_GRACE_TIME,
+                SessionCapacityGuard.getIdleTime(
+                        new AdaptiveHeartbeatDeploymentConfiguration(
+                                getClass(), properties)));
+    }
+
+    @Test
+    public void getIdleTime_heartbeatDisabled_defaultUsed() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+                "-1");
+
+        Assert.assertEquals(SpringConstants.DEFAULT_SESSION_EVICTION_IDLE_TIME,
+                SessionCapacityGuard.getIdleTime(
+                        new DefaultDeploymentConfiguration(getClass(),
+                                properties)));
+    }
+
+    private static SessionCapacityGuard guard(int maxSessions,
+            double maxHeapRatio, boolean evict) {
+        return new SessionCapacityGuard(maxSessions, maxHeapRatio, evict,
+                IDLE_MILLIS, ATTRIBUTE_NAME, () -> 0, () -> 0);
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.FutureAccess;
+import com.vaadin.flow.server.VaadinService;
+
+public class SessionSerialExecutorTest {
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+
+    private final TestSession session = new TestSession(service);
+
+    private final Queue<Runnable> pool = new LinkedList<>();
+
+    private final SessionSerialExecutor executor = new SessionSerialExecutor(
+            session, pool::add);
+
+    private static class TestError extends Error {
+    }
+
+    private static class TestSession extends SpringVaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private TestSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    @Test
+    public void execute_tasksRunInOrderInOneDrain() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            executor.execute(() -> order.add(index));
+        }
+
+        Assert.assertEquals(1, pool.size());
+        Assert.assertEquals(3, executor.getQueueDepth());
+
+        pool.poll().run();
+
+        Assert.assertEquals(3, order.size());
+        Assert.assertEquals(Integer.valueOf(0), order.get(0));
+        Assert.assertEquals(Integer.valueOf(2), order.get(2));
+        Assert.assertEquals(0, executor.getQueueDepth());
+        Assert.assertTrue(pool.isEmpty());
+    }
+
+    @Test
+    public void drain_tasksRunHoldingSessionLock() {
+        List<Boolean> locked = new ArrayList<>();
+        executor.execute(() -> locked.add(session.hasLock()));
+
+        pool.poll().run();
+
+        Assert.assertEquals(1, locked.size());
+        Assert.assertTrue(locked.get(0));
+        Assert.assertFalse(session.lock.isLocked());
+    }
+
+    @Test
+    public void drain_lockHeldByOtherThread_handedOverToLockHolder()
+            throws InterruptedException {
+        List<String> order = new ArrayList<>();
+        executor.execute(() -> order.add("first"));
+        executor.execute(() -> order.add("second"));
+
+        Thread holder = new Thread(session.lock::lock);
+        holder.start();
+        holder.join();
+
+        pool.poll().run();
+
+        // The pool thread doesn't wait for the lock
+        Assert.assertTrue(order.isEmpty());
+        Assert.assertTrue(pool.isEmpty());
+        Mockito.verify(service).ensureAccessQueuePurged(session);
+        Assert.assertEquals(1, session.getPendingAccessQueue().size());
+
+        // Run like the lock holder runs the pending access tasks
+        FutureAccess continuation = session.getPendingAccessQueue().poll();
+        continuation.run();
+
+        Assert.assertEquals(2, order.size());
+        Assert.assertEquals("second", order.get(1));
+        Assert.assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void execute_taskSubmittedByTask_runsInSameDrain() {
+        List<String> order = new ArrayList<>();
+        executor.execute(() -> {
+            order.add("first");
+            executor.execute(() -> order.add("second"));
+        });
+
+        pool.poll().run();
+
+        Assert.assertEquals(2, order.size());
+        Assert.assertEquals("second", order.get(1));
+        Assert.assertTrue(pool.isEmpty());
+    }
+
+    @Test
+    public void execute_afterDrain_schedulesNewDrain() {
+        executor.execute(() -> {
+        });
+        pool.poll().run();
+
+        executor.execute(() -> {
+        });
+
+        Assert.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void drain_failingTask_nextTasksRun() {
+        List<String> order = new ArrayList<>();
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        executor.execute(() -> order.add("next"));
+
+        pool.poll().run();
+
+        Assert.assertEquals(1, order.size());
+        Assert.assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void drain_taskThrowsError_remainingTasksAreRescheduled() {
+        List<String> order = new ArrayList<>();
+        executor.execute(() -> {
+            throw new TestError();
+        });
+        executor.execute(() -> order.add("next"));
+
+        try {
+            pool.poll().run();
+            Assert.fail("Expected the error to be propagated");
+        } catch (TestError e) {
+            // expected
+        }
+
+        Assert.assertEquals(1, executor.getQueueDepth());
+        Assert.assertEquals(1, pool.size());
+        Assert.assertFalse(session.lock.isLocked());
+
+        pool.poll().run();
+
+        Assert.assertEquals(1, order.size());
+        Assert.assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void drain_fullBatch_isRescheduled() {
+        int[] count = new int[1];
+        for (int i = 0; i < SessionSerialExecutor.BATCH_SIZE + 1; i++) {
+            executor.execute(() -> count[0]++);
+        }
+
+        pool.poll().run();
+
+        Assert.assertEquals(SessionSerialExecutor.BATCH_SIZE, count[0]);
+        Assert.assertEquals(1, executor.getQueueDepth());
+        Assert.assertEquals(1, pool.size());
+
+        pool.poll().run();
+
+        Assert.assertEquals(SessionSerialExecutor.BATCH_SIZE + 1, count[0]);
+        Assert.assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void drain_fullBatch_rescheduledAfterLockIsReleased() {
+        List<Boolean> lockedWhenScheduled = new ArrayList<>();
+        SessionSerialExecutor batching = new SessionSerialExecutor(session,
+                task -> {
+                    lockedWhenScheduled.add(session.lock.isLocked());
+                    pool.add(task);
+                });
+        for (int i = 0; i < SessionSerialExecutor.BATCH_SIZE + 1; i++) {
+            batching.execute(() -> {
+            });
+        }
+
+        pool.poll().run();
+        pool.poll().run();
+
+        Assert.assertEquals(2, lockedWhenScheduled.size());
+        Assert.assertFalse(lockedWhenScheduled.get(1));
+        Assert.assertTrue(session.getPendingAccessQueue().isEmpty());
+        Assert.assertEquals(0, batching.getQueueDepth());
+    }
+
+    @Test
+    public void drain_poolShutDown_remainingTasksAreHandedOver() {
+        int[] count = new int[1];
+        boolean[] shutDown = new boolean[1];
+        SessionSerialExecutor stopping = new SessionSerialExecutor(session,
+                task -> {
+                    if (shutDown[0]) {
+                        throw new RejectedExecutionException();
+                    }
+                    pool.add(task);
+                });
+        for (int i = 0; i < SessionSerialExecutor.BATCH_SIZE + 1; i++) {
+            stopping.execute(() -> count[0]++);
+        }
+        shutDown[0] = true;
+
+        pool.poll().run();
+
+        Assert.assertEquals(SessionSerialExecutor.BATCH_SIZE, count[0]);
+        Mockito.verify(service).ensureAccessQueuePurged(session);
+        Assert.assertEquals(1, session.getPendingAccessQueue().size());
+
+        session.getPendingAccessQueue().poll().run();
+
+        Assert.assertEquals(SessionSerialExecutor.BATCH_SIZE + 1, count[0]);
+        Assert.assertEquals(0, stopping.getQueueDepth());
+    }
+
+    @Test
+    public void execute_rejectedByPool_taskIsNotQueued() {
+        SessionSerialExecutor rejecting = new SessionSerialExecutor(session,
+                task -> {
+                    throw new RejectedExecutionException();
+                });
+
+        try {
+            rejecting.execute(() -> {
+            });
+            Assert.fail("Expected the rejection to be propagated");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+
+        Assert.assertEquals(0, rejecting.getQueueDepth());
+    }
+}
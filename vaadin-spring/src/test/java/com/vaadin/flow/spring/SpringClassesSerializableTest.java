@@ -59,19 +59,54 @@ public class SpringClassesSerializableTest extends ClassesSerializableTest {
     protected Stream<String> getExcludedPatterns() {
         return Stream.concat(Stream.of(
                 "com\\.vaadin\\.flow\\.spring\\.ForwardingRequestWrapper",
+                "com\\.vaadin\\.flow\\.spring\\.InstanceFactory",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinScanPackagesRegistrar",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinScanPackagesRegistrar\\$VaadinScanPackages",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinServletContextInitializer",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinServletContextInitializer\\$ErrorParameterServletContextListener",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinServletContextInitializer\\$WebComponentServletContextListener",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinMVCWebAppInitializer",
+                "com\\.vaadin\\.flow\\.spring\\.MicrometerRequestMetrics",
+                "com\\.vaadin\\.flow\\.spring\\.MicrometerRequestMetrics\\$TimerKey",
+                "com\\.vaadin\\.flow\\.spring\\.PrecompressedResourceCache",
+                "com\\.vaadin\\.flow\\.spring\\.PrecompressedResourceCache\\$1",
+                "com\\.vaadin\\.flow\\.spring\\.PrecompressedResourceCache\\$Entry",
+                "com\\.vaadin\\.flow\\.spring\\.ResourceBytesCache",
+                "com\\.vaadin\\.flow\\.spring\\.ResourceBytesCache\\$ByteBufferInputStream",
                 "com\\.vaadin\\.flow\\.spring\\.RootMappedCondition",
+                "com\\.vaadin\\.flow\\.spring\\.RouteTargetWarmUp",
+                "com\\.vaadin\\.flow\\.spring\\.AdaptiveHeartbeat",
+                "com\\.vaadin\\.flow\\.spring\\.AdmissionController",
+                "com\\.vaadin\\.flow\\.spring\\.AdmissionController\\$Budget",
+                "com\\.vaadin\\.flow\\.spring\\.HeartbeatFastPath",
+                "com\\.vaadin\\.flow\\.spring\\.ProvisionalSessionTracker",
+                "com\\.vaadin\\.flow\\.spring\\.ProvisionalSessionTracker\\$Entry",
+                "com\\.vaadin\\.flow\\.spring\\.SessionCapacityGuard",
+                "com\\.vaadin\\.flow\\.spring\\.SessionCapacityGuard\\$HeapSample",
+                "com\\.vaadin\\.flow\\.spring\\.SessionSerialExecutor",
+                "com\\.vaadin\\.flow\\.spring\\.StatelessRouteCache",
+                "com\\.vaadin\\.flow\\.spring\\.StatelessRouteCache\\$Key",
+                "com\\.vaadin\\.flow\\.spring\\.StatelessRouteCache\\$Page",
+                "com\\.vaadin\\.flow\\.spring\\.StatelessRouteRenderer",
+                "com\\.vaadin\\.flow\\.spring\\.StaticResourceIndex",
+                "com\\.vaadin\\.flow\\.spring\\.StaticResourceIndex\\$1",
+                "com\\.vaadin\\.flow\\.spring\\.VaadinRootDispatchFilter",
+                "com\\.vaadin\\.flow\\.spring\\.VaadinSessionCloser",
+                "com\\.vaadin\\.flow\\.spring\\.VaadinSessionRegistry",
+                "com\\.vaadin\\.flow\\.spring\\.VirtualThreadsCustomizer",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinWebsocketEndpointExporter",
                 "com\\.vaadin\\.flow\\.spring\\.DispatcherServletRegistrationBeanConfig",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinServletConfiguration",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinScopesConfig",
                 "com\\.vaadin\\.flow\\.spring\\.SpringBootAutoConfiguration",
                 "com\\.vaadin\\.flow\\.spring\\.VaadinConfigurationProperties",
+                "com\\.vaadin\\.flow\\.spring\\.VaadinConfigurationProperties\\$WarmUp",
+                "com\\.vaadin\\.flow\\.spring\\.actuate\\.VaadinEndpoint",
+                "com\\.vaadin\\.flow\\.spring\\.actuate\\.VaadinEndpointAutoConfiguration",
+                "com\\.vaadin\\.flow\\.spring\\.actuate\\.VaadinSessionSizeEndpoint",
+                "com\\.vaadin\\.flow\\.spring\\.actuate\\.VaadinSessionSizeEndpoint\\$SessionInfo",
+                "com\\.vaadin\\.flow\\.spring\\.actuate\\.VaadinSessionSizeEndpoint\\$CountingOutputStream",
+                "com\\.vaadin\\.flow\\.spring\\.scopes\\.SessionLocks",
                 "com\\.vaadin\\.flow\\.spring\\.scopes\\.VaadinSessionScope",
                 "com\\.vaadin\\.flow\\.spring\\.scopes\\.AbstractScope",
                 "com\\.vaadin\\.flow\\.spring\\.scopes\\.VaadinUIScope"),
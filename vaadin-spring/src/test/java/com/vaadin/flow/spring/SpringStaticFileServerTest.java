@@ -0,0 +1,154 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.server.VaadinServletService;
+
+public class SpringStaticFileServerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SpringStaticFileServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = temporaryFolder.newFile("app.js");
+        Files.write(file.toPath(),
+                "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        DeploymentConfiguration configuration = Mockito
+                .mock(DeploymentConfiguration.class);
+        Mockito.when(configuration.isProductionMode()).thenReturn(true);
+        VaadinServletService service = Mockito
+                .mock(VaadinServletService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+        Mockito.when(service.getStaticResource("/app.js"))
+                .thenReturn(file.toURI().toURL());
+
+        server = new SpringStaticFileServer(service, 10, true, null);
+    }
+
+    @Test
+    public void serveStaticResource_file_contentAndETagAreWritten()
+            throws IOException {
+        MockHttpServletResponse response = serve(createRequest());
+
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("0123456789", response.getContentAsString());
+        Assert.assertEquals(10, response.getContentLength());
+        Assert.assertNotNull(response.getHeader("ETag"));
+        Assert.assertEquals("max-age=3600",
+                response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void serveStaticResource_matchingETag_notModified()
+            throws IOException {
+        String etag = serve(createRequest()).getHeader("ETag");
+
+        MockHttpServletRequest request = createRequest();
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = serve(request);
+
+        Assert.assertEquals(304, response.getStatus());
+        Assert.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void serveStaticResource_range_partialContent()
+            throws IOException {
+        MockHttpServletRequest request = createRequest();
+        request.addHeader("Range", "bytes=2-4");
+        MockHttpServletResponse response = serve(request);
+
+        Assert.assertEquals(206, response.getStatus());
+        Assert.assertEquals("234", response.getContentAsString());
+        Assert.assertEquals("bytes 2-4/10",
+                response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void serveStaticResource_rangeOutOfBounds_notSatisfiable()
+            throws IOException {
+        MockHttpServletRequest request = createRequest();
+        request.addHeader("Range", "bytes=10-");
+        MockHttpServletResponse response = serve(request);
+
+        Assert.assertEquals(416, response.getStatus());
+        Assert.assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void parseRange() {
+        Assert.assertArrayEquals(new long[] { 0, 9 },
+                SpringStaticFileServer.parseRange("bytes=0-", 10));
+        Assert.assertArrayEquals(new long[] { 7, 9 },
+                SpringStaticFileServer.parseRange("bytes=-3", 10));
+        Assert.assertArrayEquals(new long[] { 5, 9 },
+                SpringStaticFileServer.parseRange("bytes=5-100", 10));
+        Assert.assertNull(SpringStaticFileServer.parseRange("bytes=0-1,3-4", 10));
+        Assert.assertNull(SpringStaticFileServer.parseRange("bytes=4-2", 10));
+        Assert.assertNull(SpringStaticFileServer.parseRange("items=0-1", 10));
+    }
+
+    @Test
+    public void isFingerprinted() {
+        Assert.assertTrue(SpringStaticFileServer
+                .isFingerprinted("/VAADIN/build/app.3f2a9c0d1b4e5f6789ab.js"));
+        Assert.assertTrue(SpringStaticFileServer
+                .isFingerprinted("/VAADIN/build/vendor-3f2a9c0d1b4e5f67.css"));
+        Assert.assertTrue(SpringStaticFileServer.isFingerprinted(
+                "/VAADIN/widgetsets/ws/0123456789ABCDEF0123456789ABCDEF.cache.js"));
+        Assert.assertFalse(SpringStaticFileServer.isFingerprinted("/app.js"));
+        Assert.assertFalse(
+                SpringStaticFileServer.isFingerprinted("/report-20190131.pdf"));
+        Assert.assertFalse(
+                SpringStaticFileServer.isFingerprinted("/lib-deadbeef.js"));
+        Assert.assertFalse(
+                SpringStaticFileServer.isFingerprinted("/styles.cache.css"));
+    }
+
+    private MockHttpServletRequest createRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                "/app.js");
+        request.setServletPath("/app.js");
+        return request;
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request)
+            throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Assert.assertTrue(server.serveStaticResource(request, response));
+        return response;
+    }
+}
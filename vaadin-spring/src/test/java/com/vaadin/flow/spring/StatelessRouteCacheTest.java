@@ -0,0 +1,164 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Span;
+
+public class StatelessRouteCacheTest {
+
+    private final StatelessRouteCache cache = new StatelessRouteCache();
+
+    private final AtomicInteger renderings = new AtomicInteger();
+
+    private final Supplier<byte[]> renderer = () -> ("page"
+            + renderings.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void get_pageIsRenderedOncePerPathAndLocale() {
+        byte[] page = cache.get(Div.class, "", Locale.ENGLISH, 0, renderer);
+
+        Assert.assertSame(page,
+                cache.get(Div.class, "", Locale.ENGLISH, 0, renderer));
+        cache.get(Div.class, "", Locale.GERMAN, 0, renderer);
+        cache.get(Div.class, "alias", Locale.ENGLISH, 0, renderer);
+
+        Assert.assertEquals(3, renderings.get());
+        Assert.assertEquals(3, cache.getPageCount());
+    }
+
+    @Test
+    public void get_pageHasExpired_pageIsRenderedAgain() {
+        cache.get(Div.class, "", Locale.ENGLISH, -1, renderer);
+        cache.get(Div.class, "", Locale.ENGLISH, 1, renderer);
+
+        Assert.assertEquals(1, renderings.get());
+
+        cache.get(Span.class, "span", Locale.ENGLISH, 1, renderer);
+        sleep(5);
+        cache.get(Span.class, "span", Locale.ENGLISH, 1, renderer);
+
+        Assert.assertEquals(3, renderings.get());
+    }
+
+    @Test
+    public void get_renderingFails_nothingIsCached() {
+        Assert.assertNull(
+                cache.get(Div.class, "", Locale.ENGLISH, 0, () -> null));
+        Assert.assertEquals(0, cache.getPageCount());
+    }
+
+    @Test
+    public void get_rendererThrows_exceptionIsPropagatedAndNothingIsCached() {
+        try {
+            cache.get(Div.class, "", Locale.ENGLISH, 0, () -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.fail("Expected the exception to be propagated");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+
+        Assert.assertEquals(0, cache.getPageCount());
+        Assert.assertNotNull(
+                cache.get(Div.class, "", Locale.ENGLISH, 0, renderer));
+    }
+
+    @Test
+    public void get_rendererUsesCache_pagesAreRendered() {
+        byte[] page = cache.get(Div.class, "", Locale.ENGLISH, 0,
+                () -> cache.get(Span.class, "span", Locale.ENGLISH, 0,
+                        renderer));
+
+        Assert.assertNotNull(page);
+        Assert.assertEquals(2, cache.getPageCount());
+    }
+
+    @Test
+    public void get_concurrentRequests_pageIsRenderedOnce()
+            throws InterruptedException {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<byte[]> slowRenderer = () -> {
+            rendering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return renderer.get();
+        };
+        byte[][] pages = new byte[2][];
+        Thread first = new Thread(() -> pages[0] = cache.get(Div.class, "",
+                Locale.ENGLISH, 0, slowRenderer));
+        first.start();
+        rendering.await();
+
+        // Other keys are not blocked by the rendering
+        cache.get(Span.class, "span", Locale.ENGLISH, 0, renderer);
+
+        Thread second = new Thread(() -> pages[1] = cache.get(Div.class, "",
+                Locale.ENGLISH, 0, slowRenderer));
+        second.start();
+        release.countDown();
+        first.join();
+        second.join();
+
+        Assert.assertSame(pages[0], pages[1]);
+        Assert.assertEquals(2, renderings.get());
+    }
+
+    @Test
+    public void invalidate_onlyPagesOfTargetAreRemoved() {
+        cache.get(Div.class, "", Locale.ENGLISH, 0, renderer);
+        cache.get(Div.class, "", Locale.GERMAN, 0, renderer);
+        cache.get(Span.class, "span", Locale.ENGLISH, 0, renderer);
+
+        cache.invalidate(Div.class);
+
+        Assert.assertEquals(1, cache.getPageCount());
+    }
+
+    @Test
+    public void invalidationEvent_pagesAreRemoved() {
+        cache.get(Div.class, "", Locale.ENGLISH, 0, renderer);
+        cache.get(Span.class, "span", Locale.ENGLISH, 0, renderer);
+
+        cache.onApplicationEvent(
+                new StatelessRouteInvalidationEvent(this, Span.class));
+        Assert.assertEquals(1, cache.getPageCount());
+
+        cache.onApplicationEvent(new StatelessRouteInvalidationEvent(this));
+        Assert.assertEquals(0, cache.getPageCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
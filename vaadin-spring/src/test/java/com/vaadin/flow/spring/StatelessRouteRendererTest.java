@@ -0,0 +1,119 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.di.Instantiator;
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.RouteRegistry;
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.spring.annotation.StatelessRoute;
+
+public class StatelessRouteRendererTest {
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+
+    private final RouteRegistry routeRegistry = Mockito
+            .mock(RouteRegistry.class);
+
+    private final Instantiator instantiator = Mockito
+            .mock(Instantiator.class);
+
+    private final VaadinRequest request = Mockito.mock(VaadinRequest.class);
+
+    private final VaadinResponse response = Mockito
+            .mock(VaadinResponse.class);
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private final StatelessRouteRenderer renderer = new StatelessRouteRenderer(
+            service, routeRegistry, new StatelessRouteCache());
+
+    @Route("plain")
+    @StatelessRoute
+    public static class PlainView extends Div {
+
+        public PlainView() {
+            setText("Hello");
+        }
+    }
+
+    @Route("guarded")
+    @StatelessRoute
+    public static class GuardedView extends Div
+            implements BeforeEnterObserver {
+
+        @Override
+        public void beforeEnter(BeforeEnterEvent event) {
+            // Access control
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        Mockito.when(service.getInstantiator()).thenReturn(instantiator);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(Mockito.mock(DeploymentConfiguration.class));
+        Mockito.when(request.getLocale()).thenReturn(Locale.ENGLISH);
+        Mockito.when(response.getOutputStream()).thenReturn(output);
+    }
+
+    @Test
+    public void serve_plainView_pageIsWritten() throws IOException {
+        mockRoute("plain", PlainView.class);
+
+        Assert.assertTrue(renderer.serve(request, response));
+        Assert.assertTrue(new String(output.toByteArray(),
+                StandardCharsets.UTF_8).contains("Hello"));
+    }
+
+    @Test
+    public void serve_beforeEnterObserver_regularBootstrapIsUsed()
+            throws IOException {
+        mockRoute("guarded", GuardedView.class);
+
+        Assert.assertFalse(renderer.serve(request, response));
+        Mockito.verify(instantiator, Mockito.never())
+                .createRouteTarget(Mockito.any(), Mockito.any());
+        Assert.assertEquals(0, output.size());
+    }
+
+    private <T extends Component> void mockRoute(String path,
+            Class<T> target) {
+        Mockito.when(request.getPathInfo()).thenReturn("/" + path);
+        Mockito.when(routeRegistry.getNavigationTarget(path)).thenReturn(
+                Optional.<Class<? extends Component>> of(target));
+        Mockito.when(instantiator.createRouteTarget(target, null))
+                .then(invocation -> target.newInstance());
+    }
+}
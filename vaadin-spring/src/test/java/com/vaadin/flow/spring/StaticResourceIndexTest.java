@@ -0,0 +1,64 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+public class StaticResourceIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void get_resourceInSeveralLocations_firstLocationWins()
+            throws IOException {
+        File first = temporaryFolder.newFolder("first");
+        File second = temporaryFolder.newFolder("second");
+        File firstFile = createFile(first, "frontend/foo.js");
+        createFile(second, "frontend/foo.js");
+        File barFile = createFile(second, "bar.css");
+
+        StaticResourceIndex index = new StaticResourceIndex(
+                new PathMatchingResourcePatternResolver(),
+                new String[] { first.toURI().toString(),
+                        second.toURI().toString() },
+                path -> null, () -> {
+                });
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(firstFile.toURI().toURL(),
+                index.get("/frontend/foo.js"));
+        Assert.assertEquals(barFile.toURI().toURL(), index.get("bar.css"));
+        Assert.assertNull(index.get("/frontend"));
+        Assert.assertNull(index.get("/missing.js"));
+    }
+
+    private static File createFile(File directory, String path)
+            throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "content".getBytes());
+        return file;
+    }
+}
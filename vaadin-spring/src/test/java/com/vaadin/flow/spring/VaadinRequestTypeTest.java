@@ -0,0 +1,62 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class VaadinRequestTypeTest {
+
+    @Test
+    public void of_requestTypeParameter() {
+        Assert.assertEquals(VaadinRequestType.UIDL,
+                VaadinRequestType.of(createRequest("POST", "/", "v-r=uidl")));
+        Assert.assertEquals(VaadinRequestType.HEARTBEAT, VaadinRequestType
+                .of(createRequest("POST", "/", "v-uiId=1&v-r=heartbeat")));
+        Assert.assertEquals(VaadinRequestType.PUSH, VaadinRequestType
+                .of(createRequest("GET", "/", "v-r=push&v-uiId=1")));
+        Assert.assertEquals(VaadinRequestType.BOOTSTRAP, VaadinRequestType
+                .of(createRequest("GET", "/", "v-r=uidlx")));
+    }
+
+    @Test
+    public void of_dynamicResourcePath() {
+        Assert.assertEquals(VaadinRequestType.STREAM_RESOURCE,
+                VaadinRequestType.of(createRequest("GET",
+                        "/VAADIN/dynamic/resource/0/key/file.txt", null)));
+        Assert.assertEquals(VaadinRequestType.UPLOAD,
+                VaadinRequestType.of(createRequest("POST",
+                        "/VAADIN/dynamic/resource/0/key/upload", null)));
+    }
+
+    @Test
+    public void of_otherRequests() {
+        Assert.assertEquals(VaadinRequestType.BOOTSTRAP,
+                VaadinRequestType.of(createRequest("GET", "/about", null)));
+        Assert.assertEquals(VaadinRequestType.OTHER,
+                VaadinRequestType.of(createRequest("POST", "/about", null)));
+    }
+
+    private static MockHttpServletRequest createRequest(String method,
+            String pathInfo, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method,
+                pathInfo);
+        request.setPathInfo(pathInfo);
+        request.setQueryString(query);
+        return request;
+    }
+}
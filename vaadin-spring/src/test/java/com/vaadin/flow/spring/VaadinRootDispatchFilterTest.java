@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.io.IOException;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class VaadinRootDispatchFilterTest {
+
+    @Test
+    public void isInternalRequest() {
+        Assert.assertTrue(VaadinRootDispatchFilter
+                .isInternalRequest(createRequest("/ctx", "/", "v-r=uidl")));
+        Assert.assertTrue(VaadinRootDispatchFilter.isInternalRequest(
+                createRequest("", "/", "v-uiId=0&v-r=heartbeat")));
+        Assert.assertTrue(VaadinRootDispatchFilter.isInternalRequest(
+                createRequest("/ctx", "/VAADIN/dynamic/resource/0/1/a", null)));
+
+        Assert.assertFalse(VaadinRootDispatchFilter
+                .isInternalRequest(createRequest("/ctx", "/about", null)));
+        Assert.assertFalse(VaadinRootDispatchFilter.isInternalRequest(
+                createRequest("/ctx", "/about", "foo=bar&xv-r=uidl")));
+        Assert.assertFalse(VaadinRootDispatchFilter.isInternalRequest(
+                createRequest("/VAADIN", "/about", null)));
+        Assert.assertFalse(VaadinRootDispatchFilter.isInternalRequest(
+                createRequest("/ctx", "/about", "v-r=unknown")));
+    }
+
+    @Test
+    public void doFilter_internalRequest_servletIsCalled()
+            throws IOException, ServletException {
+        Servlet servlet = Mockito.mock(Servlet.class);
+        MockHttpServletRequest request = createRequest("", "/", "v-r=uidl");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        new VaadinRootDispatchFilter(servlet).doFilter(request, response,
+                chain);
+
+        Mockito.verify(servlet).service(request, response);
+        Assert.assertNull(chain.getRequest());
+    }
+
+    @Test
+    public void doFilter_vaadinServletNotInitialized_chainIsContinued()
+            throws IOException, ServletException {
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+        MockHttpServletRequest request = createRequest("", "/", "v-r=uidl");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        new VaadinRootDispatchFilter(servlet).doFilter(request, response,
+                chain);
+
+        Mockito.verify(servlet, Mockito.never())
+                .service((ServletRequest) request, (ServletResponse) response);
+        Assert.assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    public void doFilter_otherRequest_chainIsContinued()
+            throws IOException, ServletException {
+        Servlet servlet = Mockito.mock(Servlet.class);
+        MockHttpServletRequest request = createRequest("", "/foo", null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        new VaadinRootDispatchFilter(servlet).doFilter(request, response,
+                chain);
+
+        Mockito.verifyZeroInteractions(servlet);
+        Assert.assertSame(request, chain.getRequest());
+    }
+
+    private static MockHttpServletRequest createRequest(String contextPath,
+            String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                contextPath + path);
+        request.setContextPath(contextPath);
+        request.setServletPath(path);
+        request.setQueryString(query);
+        return request;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.VaadinService;
+
+public class VaadinSessionRegistryTest {
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+
+    @Test
+    public void register_sessionsAreCountedAndListed() {
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+        SpringVaadinSession first = new SpringVaadinSession(service);
+        SpringVaadinSession second = new SpringVaadinSession(service);
+
+        registry.register(first);
+        registry.register(second);
+        registry.register(first);
+
+        Assert.assertEquals(2, registry.getSessionCount());
+        Assert.assertTrue(registry.getSessions().contains(first));
+        Assert.assertTrue(registry.getSessions().contains(second));
+    }
+
+    @Test
+    public void unregister_sessionIsRemoved() {
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+        SpringVaadinSession destroyed = new SpringVaadinSession(service);
+        SpringVaadinSession live = new SpringVaadinSession(service);
+        registry.register(destroyed);
+        registry.register(live);
+
+        registry.unregister(destroyed);
+
+        Assert.assertEquals(1, registry.getSessionCount());
+        Assert.assertFalse(registry.getSessions().contains(destroyed));
+        Assert.assertTrue(registry.getSessions().contains(live));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getSessions_viewIsUnmodifiable() {
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+
+        registry.getSessions().add(new SpringVaadinSession(service));
+    }
+}
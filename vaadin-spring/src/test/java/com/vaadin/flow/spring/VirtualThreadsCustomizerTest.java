@@ -0,0 +1,42 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+
+public class VirtualThreadsCustomizerTest {
+
+    @Test
+    public void customize_connectorIsCustomizedOnlyWithVirtualThreadSupport() {
+        TomcatServletWebServerFactory factory = Mockito
+                .mock(TomcatServletWebServerFactory.class);
+
+        new VirtualThreadsCustomizer().customize(factory);
+
+        ExecutorService executor = VirtualThreadsCustomizer.createExecutor();
+        Mockito.verify(factory, Mockito.times(executor == null ? 0 : 1))
+                .addConnectorCustomizers(
+                        Mockito.any(TomcatConnectorCustomizer.class));
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.actuate;
+
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.ServletContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.spring.SpringServlet;
+import com.vaadin.flow.spring.SpringVaadinServletService;
+import com.vaadin.flow.spring.SpringVaadinSession;
+import com.vaadin.flow.spring.VaadinSessionRegistry;
+
+public class VaadinEndpointTest {
+
+    private static class TestSession extends SpringVaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private TestSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    @Test
+    public void snapshot_serviceNotInitialized_notInitializedIsReported() {
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+
+        Map<String, Object> snapshot = new VaadinEndpoint(servlet, 10)
+                .snapshot();
+
+        Assert.assertEquals(false, snapshot.get("initialized"));
+    }
+
+    @Test
+    public void snapshot_lockedSessionIsSkipped() throws InterruptedException {
+        SpringVaadinServletService service = Mockito
+                .mock(SpringVaadinServletService.class);
+        TestSession free = new TestSession(service);
+        TestSession locked = new TestSession(service);
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+        registry.register(free);
+        registry.register(locked);
+        Mockito.when(service.getSessionRegistry()).thenReturn(registry);
+        Mockito.when(service.getScopeLockTimeoutCount()).thenReturn(3L);
+
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+        Mockito.when(servlet.getService()).thenReturn(service);
+        Mockito.when(servlet.getServletContext())
+                .thenReturn(Mockito.mock(ServletContext.class));
+
+        Thread thread = new Thread(locked.lock::lock);
+        thread.start();
+        thread.join();
+
+        Map<String, Object> snapshot = new VaadinEndpoint(servlet, 10)
+                .snapshot();
+
+        Assert.assertEquals(true, snapshot.get("initialized"));
+        Assert.assertEquals(2, snapshot.get("sessions"));
+        Assert.assertEquals(1, snapshot.get("sampledSessions"));
+        Assert.assertEquals(1, snapshot.get("skippedSessions"));
+        Assert.assertEquals(3L, snapshot.get("scopeLockTimeouts"));
+        Assert.assertFalse(free.lock.isLocked());
+    }
+
+    @Test
+    public void snapshot_sampledSessionIsUnlockedThroughSession() {
+        SpringVaadinServletService service = Mockito
+                .mock(SpringVaadinServletService.class);
+        TestSession session = new TestSession(service);
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+        registry.register(session);
+        Mockito.when(service.getSessionRegistry()).thenReturn(registry);
+
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+        Mockito.when(servlet.getService()).thenReturn(service);
+        Mockito.when(servlet.getServletContext())
+                .thenReturn(Mockito.mock(ServletContext.class));
+
+        new VaadinEndpoint(servlet, 10).snapshot();
+
+        // Access tasks queued while the snapshot held the lock are run
+        Mockito.verify(service).ensureAccessQueuePurged(session);
+        Assert.assertFalse(session.lock.isLocked());
+    }
+}
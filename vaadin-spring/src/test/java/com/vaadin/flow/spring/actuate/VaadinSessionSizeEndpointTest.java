@@ -0,0 +1,89 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.actuate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.spring.SpringServlet;
+import com.vaadin.flow.spring.SpringVaadinServletService;
+import com.vaadin.flow.spring.SpringVaadinSession;
+import com.vaadin.flow.spring.VaadinSessionRegistry;
+
+public class VaadinSessionSizeEndpointTest {
+
+    private static class TestSession extends SpringVaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private TestSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    @Test
+    public void largestSessions_serviceNotInitialized_notInitializedIsReported() {
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+
+        Map<String, Object> result = new VaadinSessionSizeEndpoint(servlet,
+                10, 10).largestSessions();
+
+        Assert.assertEquals(false, result.get("initialized"));
+    }
+
+    @Test
+    public void largestSessions_sampleSizeAndLockedSessionsAreRespected()
+            throws InterruptedException {
+        SpringVaadinServletService service = Mockito
+                .mock(SpringVaadinServletService.class);
+        TestSession locked = new TestSession(service);
+        VaadinSessionRegistry registry = new VaadinSessionRegistry();
+        registry.register(locked);
+        for (int i = 0; i < 3; i++) {
+            registry.register(new TestSession(service));
+        }
+        Mockito.when(service.getSessionRegistry()).thenReturn(registry);
+
+        SpringServlet servlet = Mockito.mock(SpringServlet.class);
+        Mockito.when(servlet.getService()).thenReturn(service);
+
+        Thread thread = new Thread(locked.lock::lock);
+        thread.start();
+        thread.join();
+
+        Map<String, Object> result = new VaadinSessionSizeEndpoint(servlet, 3,
+                1).largestSessions();
+
+        int sampled = (Integer) result.get("sampledSessions");
+        int skipped = (Integer) result.get("skippedSessions");
+        Assert.assertEquals(3, sampled + skipped);
+        Assert.assertTrue(skipped <= 1);
+        Assert.assertEquals(1,
+                ((List<?>) result.get("largestSessions")).size());
+    }
+}
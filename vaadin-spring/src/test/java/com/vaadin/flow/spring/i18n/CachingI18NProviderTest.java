@@ -0,0 +1,87 @@
+/*
+ * Copyright 2000-2018 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.flow.spring.i18n;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.flow.i18n.I18NProvider;
+
+public class CachingI18NProviderTest {
+
+    private static class CountingProvider implements I18NProvider {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<Locale> getProvidedLocales() {
+            return Collections.singletonList(Locale.ENGLISH);
+        }
+
+        @Override
+        public String getTranslation(String key, Locale locale,
+                Object... params) {
+            calls.incrementAndGet();
+            return key + params.length;
+        }
+    }
+
+    @Test
+    public void getTranslation_noParameters_translationIsCached() {
+        CountingProvider delegate = new CountingProvider();
+        CachingI18NProvider provider = new CachingI18NProvider(delegate, 10);
+
+        Assert.assertEquals("foo0",
+                provider.getTranslation("foo", Locale.ENGLISH));
+        Assert.assertEquals("foo0",
+                provider.getTranslation("foo", Locale.ENGLISH));
+
+        Assert.assertEquals(1, delegate.calls.get());
+        Assert.assertEquals(1, provider.getHitCount());
+        Assert.assertEquals(1, provider.getMissCount());
+    }
+
+    @Test
+    public void getTranslation_withParameters_delegateIsCalledEveryTime() {
+        CountingProvider delegate = new CountingProvider();
+        CachingI18NProvider provider = new CachingI18NProvider(delegate, 10);
+
+        provider.getTranslation("foo", Locale.ENGLISH, "bar");
+        Assert.assertEquals("foo1",
+                provider.getTranslation("foo", Locale.ENGLISH, "bar"));
+
+        Assert.assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    public void getTranslation_cacheIsFull_newTranslationReplacesCache() {
+        CountingProvider delegate = new CountingProvider();
+        CachingI18NProvider provider = new CachingI18NProvider(delegate, 1);
+
+        provider.getTranslation("foo", Locale.ENGLISH);
+        provider.getTranslation("bar", Locale.ENGLISH);
+        provider.getTranslation("bar", Locale.ENGLISH);
+        Assert.assertEquals(2, delegate.calls.get());
+
+        provider.getTranslation("foo", Locale.ENGLISH);
+        Assert.assertEquals(3, delegate.calls.get());
+    }
+}
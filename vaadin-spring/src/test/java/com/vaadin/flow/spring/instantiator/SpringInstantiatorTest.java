@@ -45,8 +45,10 @@ import com.vaadin.flow.di.Instantiator;
 import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.i18n.I18NProvider;
 import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinServiceInitListener;
 import com.vaadin.flow.server.VaadinServletService;
+import com.vaadin.flow.spring.SpringInstantiator;
 import com.vaadin.flow.spring.SpringServlet;
 
 @RunWith(SpringRunner.class)
@@ -131,6 +133,24 @@ public class SpringInstantiatorTest {
                 instantiator.createRouteTarget(RouteTarget2.class, null));
     }
 
+    @Test
+    public void getOrCreate_beanIsRequestedTwice_beanNamesAreResolvedOnce() {
+        ApplicationContext context = Mockito.mock(ApplicationContext.class);
+        RouteTarget2 bean = new RouteTarget2();
+        Mockito.when(context.getBeanNamesForType(RouteTarget2.class))
+                .thenReturn(new String[] { "routeTarget2" });
+        Mockito.when(context.getBean("routeTarget2", RouteTarget2.class))
+                .thenReturn(bean);
+
+        SpringInstantiator instantiator = new SpringInstantiator(
+                Mockito.mock(VaadinService.class), context);
+
+        Assert.assertSame(bean, instantiator.getOrCreate(RouteTarget2.class));
+        Assert.assertSame(bean, instantiator.getOrCreate(RouteTarget2.class));
+        Mockito.verify(context, Mockito.times(1))
+                .getBeanNamesForType(RouteTarget2.class);
+    }
+
     @Test
     public void getI18NProvider_i18nProviderIsABean_i18nProviderIsAvailable()
             throws ServletException {
@@ -141,6 +161,30 @@ public class SpringInstantiatorTest {
                 instantiator.getI18NProvider().getClass());
     }
 
+    @Test
+    public void getOrCreate_contextRefreshed_beanNamesAreResolvedAgain() {
+        ApplicationContext mockContext = Mockito
+                .mock(ApplicationContext.class);
+        RouteTarget2 bean = new RouteTarget2();
+        Mockito.when(mockContext.getStartupDate()).thenReturn(1L);
+        Mockito.when(mockContext.getBeanNamesForType(RouteTarget2.class))
+                .thenReturn(new String[] { "target" });
+        Mockito.when(mockContext.getBean("target", RouteTarget2.class))
+                .thenReturn(bean);
+        SpringInstantiator instantiator = new SpringInstantiator(
+                Mockito.mock(VaadinService.class), mockContext);
+
+        instantiator.getOrCreate(RouteTarget2.class);
+        instantiator.getOrCreate(RouteTarget2.class);
+        Mockito.verify(mockContext, Mockito.times(1))
+                .getBeanNamesForType(RouteTarget2.class);
+
+        Mockito.when(mockContext.getStartupDate()).thenReturn(2L);
+        Assert.assertSame(bean, instantiator.getOrCreate(RouteTarget2.class));
+        Mockito.verify(mockContext, Mockito.times(2))
+                .getBeanNamesForType(RouteTarget2.class);
+    }
+
     public static VaadinServletService getService(ApplicationContext context,
             Properties configProperties) throws ServletException {
         SpringServlet servlet = new SpringServlet(context, false) {
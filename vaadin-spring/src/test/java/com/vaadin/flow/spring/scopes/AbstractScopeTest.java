@@ -29,9 +29,12 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.Scope;
 
+import com.vaadin.flow.function.DeploymentConfiguration;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.VaadinSessionState;
+import com.vaadin.flow.spring.SpringConstants;
+import com.vaadin.flow.spring.SpringVaadinServletService;
 import com.vaadin.flow.spring.SpringVaadinSession;
 
 public abstract class AbstractScopeTest {
@@ -41,7 +44,7 @@ public abstract class AbstractScopeTest {
     public static class TestSession extends SpringVaadinSession {
 
         public TestSession() {
-            super(Mockito.mock(VaadinService.class));
+            super(Mockito.mock(SpringVaadinServletService.class));
         }
 
     }
@@ -144,5 +147,28 @@ public abstract class AbstractScopeTest {
         return session;
     }
 
+    protected void enableSharedReads(VaadinSession session) {
+        setConfigurationProperty(session, SpringConstants.SCOPE_SHARED_READS,
+                true);
+    }
+
+    protected void setConfigurationProperty(VaadinSession session,
+            String name, Object value) {
+        VaadinService service = session.getService();
+        DeploymentConfiguration configuration = service
+                .getDeploymentConfiguration();
+        if (configuration == null) {
+            configuration = Mockito.mock(DeploymentConfiguration.class);
+            when(configuration.getApplicationOrSystemProperty(Mockito.any(),
+                    Mockito.any(), Mockito.any()))
+                            .thenAnswer(invocation -> invocation
+                                    .getArgument(1));
+            when(service.getDeploymentConfiguration())
+                    .thenReturn(configuration);
+        }
+        when(configuration.getApplicationOrSystemProperty(Mockito.eq(name),
+                Mockito.any(), Mockito.any())).thenReturn(value);
+    }
+
     protected abstract Scope getScope();
 }
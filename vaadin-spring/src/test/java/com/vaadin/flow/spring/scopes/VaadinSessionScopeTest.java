@@ -20,7 +20,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -30,6 +32,8 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.Scope;
 
 import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.SpringConstants;
+import com.vaadin.flow.spring.SpringVaadinServletService;
 import com.vaadin.flow.spring.SpringVaadinSession;
 
 import net.jcip.annotations.NotThreadSafe;
@@ -67,6 +71,67 @@ public class VaadinSessionScopeTest extends AbstractScopeTest {
         registerDestructionCallback_currentScopeIsSet_objectIsStored(scope);
     }
 
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void get_sharedReadsEnabled_existingObjectIsReturnedWithoutSessionLock() {
+        VaadinSession session = mockSession();
+        enableSharedReads(session);
+
+        VaadinSessionScope scope = new VaadinSessionScope();
+
+        Object object = new Object();
+        ObjectFactory factory = Mockito.mock(ObjectFactory.class);
+        when(factory.getObject()).thenReturn(object);
+        scope.get("foo", factory);
+
+        Mockito.clearInvocations(session);
+        when(session.hasLock()).thenReturn(false);
+
+        Assert.assertSame(object, scope.get("foo", factory));
+        verify(session, Mockito.never()).lock();
+        verify(factory).getObject();
+    }
+
+    @Test
+    public void get_lockTimeoutConfigured_sessionIsLockedByAnotherThread_throwException()
+            throws InterruptedException {
+        VaadinSession session = mockSession();
+        setConfigurationProperty(session, SpringConstants.SCOPE_LOCK_TIMEOUT,
+                10L);
+
+        ReentrantLock lock = new ReentrantLock();
+        when(session.getLockInstance()).thenReturn(lock);
+        when(session.hasLock()).thenReturn(false);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        owner.start();
+        locked.await();
+
+        try {
+            new VaadinSessionScope().get("foo", Object::new);
+            Assert.fail("Lock timeout is expected");
+        } catch (SessionLockTimeoutException exception) {
+            Assert.assertEquals(10L, exception.getTimeout());
+            Mockito.verify((SpringVaadinServletService) session.getService())
+                    .recordScopeLockTimeout();
+        } finally {
+            release.countDown();
+            owner.join();
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     @Test
     public void destroySession_sessionAttributeIsCleanedAndDestructionCallbackIsCalled() {
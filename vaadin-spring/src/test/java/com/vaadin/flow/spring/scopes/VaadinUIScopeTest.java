@@ -21,7 +21,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -36,6 +38,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.router.Router;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.SpringConstants;
 import com.vaadin.flow.spring.SpringVaadinSession;
 
 import net.jcip.annotations.NotThreadSafe;
@@ -180,6 +183,108 @@ public class VaadinUIScopeTest extends AbstractScopeTest {
         verify(factory, times(2)).getObject();
     }
 
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void get_sharedReadsEnabled_sessionIsLockedByAnotherThread_existingObjectIsReturned()
+            throws InterruptedException {
+        mockUI();
+        VaadinSession session = VaadinSession.getCurrent();
+        enableSharedReads(session);
+
+        VaadinUIScope scope = new VaadinUIScope();
+
+        Object object = new Object();
+        ObjectFactory factory = Mockito.mock(ObjectFactory.class);
+        when(factory.getObject()).thenReturn(object);
+        scope.get("foo", factory);
+
+        // fail fast instead of blocking if the session lock is used
+        setConfigurationProperty(session, SpringConstants.SCOPE_LOCK_TIMEOUT,
+                10L);
+        ReentrantLock lock = new ReentrantLock();
+        when(session.getLockInstance()).thenReturn(lock);
+        when(session.hasLock()).thenReturn(false);
+        Mockito.clearInvocations(session);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        owner.start();
+        locked.await();
+
+        try {
+            Assert.assertSame(object, scope.get("foo", factory));
+            verify(session, Mockito.never()).lock();
+            verify(factory).getObject();
+        } finally {
+            release.countDown();
+            owner.join();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void destroySession_sharedReadsEnabled_storeIsDestroyedUnderSessionLock() {
+        mockUI();
+        SpringVaadinSession springSession = (SpringVaadinSession) VaadinSession
+                .getCurrent();
+        enableSharedReads(springSession);
+
+        doCallRealMethod().when(springSession)
+                .addDestroyListener(Mockito.any());
+        doCallRealMethod().when(springSession).fireSessionDestroy();
+
+        VaadinUIScope scope = new VaadinUIScope();
+
+        ObjectFactory factory = Mockito.mock(ObjectFactory.class);
+        when(factory.getObject()).thenReturn(new Object());
+        scope.get("foo", factory);
+
+        Mockito.clearInvocations(springSession);
+        springSession.fireSessionDestroy();
+
+        verify(springSession).lock();
+        verify(springSession).unlock();
+
+        // the shared store is gone, the bean is created again
+        scope.get("foo", factory);
+        verify(factory, times(2)).getObject();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void detachUI_sharedReadsEnabled_storeIsRemoved() {
+        UI ui = mockUI();
+        enableSharedReads(VaadinSession.getCurrent());
+
+        VaadinUIScope scope = new VaadinUIScope();
+
+        AtomicInteger count = new AtomicInteger();
+        scope.registerDestructionCallback("foo", count::getAndIncrement);
+
+        ObjectFactory factory = Mockito.mock(ObjectFactory.class);
+        when(factory.getObject()).thenReturn(new Object());
+        scope.get("foo", factory);
+
+        ComponentUtil.onComponentDetach(ui);
+
+        Assert.assertEquals(1, count.get());
+
+        // the store of the detached UI is not returned by the shared lookup
+        scope.get("foo", factory);
+        verify(factory, times(2)).getObject();
+    }
+
     @Override
     protected Scope getScope() {
         return new VaadinUIScope();
@@ -16,6 +16,7 @@
 package com.vaadin.flow.spring.service;
 
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import javax.servlet.ServletException;
@@ -23,18 +24,27 @@ import javax.servlet.ServletException;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.di.Instantiator;
+import com.vaadin.flow.server.Constants;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.WebBrowser;
+import com.vaadin.flow.spring.SpringConstants;
+import com.vaadin.flow.spring.SpringVaadinServletService;
 import com.vaadin.flow.spring.instantiator.SpringInstantiatorTest;
+import com.vaadin.flow.theme.AbstractTheme;
 
 @RunWith(SpringRunner.class)
 @Import(SpringVaadinServletServiceTest.TestServletConfiguration.class)
@@ -51,6 +61,10 @@ public class SpringVaadinServletServiceTest {
     @ComponentScan
     public static class TestServletConfiguration {
 
+        @Bean
+        public ResourceProperties resourceProperties() {
+            return new ResourceProperties();
+        }
     }
 
     @Component
@@ -84,6 +98,36 @@ public class SpringVaadinServletServiceTest {
         }
     }
 
+    public static class TestTheme implements AbstractTheme {
+
+        private final String themeUrl;
+
+        public TestTheme() {
+            this("theme/test/");
+        }
+
+        protected TestTheme(String themeUrl) {
+            this.themeUrl = themeUrl;
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "src/";
+        }
+
+        @Override
+        public String getThemeUrl() {
+            return themeUrl;
+        }
+    }
+
+    public static class OtherTheme extends TestTheme {
+
+        public OtherTheme() {
+            super("theme/other/");
+        }
+    }
+
     @Test
     public void getInstantiator_springManagedBean_instantiatorBeanReturned()
             throws ServletException {
@@ -118,4 +162,148 @@ public class SpringVaadinServletServiceTest {
         SpringInstantiatorTest.getService(context, properties);
     }
 
+    @Test
+    public void isUIActive_adaptiveHeartbeat_missedHeartbeatsAtMaxIntervalArePermitted()
+            throws ServletException {
+        VaadinService service = SpringInstantiatorTest.getService(context,
+                getAdaptiveHeartbeatProperties(300));
+        UI ui = new UI();
+
+        ui.getInternals().setLastHeartbeatTimestamp(
+                System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(2000));
+        Assert.assertTrue(service.isUIActive(ui));
+
+        ui.getInternals().setLastHeartbeatTimestamp(
+                System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(4000));
+        Assert.assertFalse(service.isUIActive(ui));
+    }
+
+    @Test
+    public void isUIActive_adaptiveHeartbeatWithHeartbeatDisabled_uiIsActive()
+            throws ServletException {
+        VaadinService service = SpringInstantiatorTest.getService(context,
+                getAdaptiveHeartbeatProperties(-1));
+        UI ui = new UI();
+        ui.getInternals().setLastHeartbeatTimestamp(0);
+
+        Assert.assertTrue(service.isUIActive(ui));
+    }
+
+    @Test
+    public void getStaticResource_productionMode_missingResourceIsMemoized()
+            throws ServletException {
+        SpringVaadinServletService service = getResourceCachingService(10);
+
+        Assert.assertNull(service.getStaticResource("/missing.js"));
+        Assert.assertNull(service.getStaticResource("/missing.js"));
+
+        Assert.assertEquals(1, service.getResourceCacheMissCount());
+        Assert.assertEquals(1, service.getResourceCacheHitCount());
+    }
+
+    @Test
+    public void getStaticResource_developmentMode_cacheIsNotUsed()
+            throws ServletException {
+        Properties properties = new Properties();
+        properties.setProperty(SpringConstants.STATIC_RESOURCE_CACHE_SIZE,
+                "10");
+        SpringVaadinServletService service = getSpringService(properties);
+
+        Assert.assertNull(service.getStaticResource("/missing.js"));
+        Assert.assertNull(service.getStaticResource("/missing.js"));
+
+        Assert.assertEquals(0, service.getResourceCacheMissCount());
+        Assert.assertEquals(0, service.getResourceCacheHitCount());
+    }
+
+    @Test
+    public void getStaticResource_cacheIsFull_cacheIsCleared()
+            throws ServletException {
+        SpringVaadinServletService service = getResourceCachingService(2);
+
+        service.getStaticResource("/a.js");
+        service.getStaticResource("/b.js");
+        service.getStaticResource("/b.js");
+        Assert.assertEquals(2, service.getResourceCacheMissCount());
+        Assert.assertEquals(1, service.getResourceCacheHitCount());
+
+        // the third path doesn't fit and starts the cache over
+        service.getStaticResource("/c.js");
+        service.getStaticResource("/a.js");
+        service.getStaticResource("/c.js");
+
+        Assert.assertEquals(4, service.getResourceCacheMissCount());
+        Assert.assertEquals(2, service.getResourceCacheHitCount());
+    }
+
+    @Test
+    public void getResource_sameBrowserAndTheme_lookupIsMemoized()
+            throws ServletException {
+        SpringVaadinServletService service = getResourceCachingService(10);
+        WebBrowser browser = mockBrowser(false);
+
+        Assert.assertNull(service.getResource("src/button.html", browser,
+                new TestTheme()));
+        // the themed and the raw path are looked up
+        Assert.assertEquals(2, service.getResourceCacheMissCount());
+
+        Assert.assertNull(service.getResource("src/button.html", browser,
+                new TestTheme()));
+        Assert.assertEquals(2, service.getResourceCacheMissCount());
+        Assert.assertEquals(0, service.getResourceCacheHitCount());
+    }
+
+    @Test
+    public void getResource_otherBrowserOrTheme_lookupIsNotShared()
+            throws ServletException {
+        SpringVaadinServletService service = getResourceCachingService(10);
+
+        service.getResource("src/button.html", mockBrowser(false),
+                new TestTheme());
+        Assert.assertEquals(2, service.getResourceCacheMissCount());
+
+        service.getResource("src/button.html", mockBrowser(true),
+                new TestTheme());
+        Assert.assertEquals(2, service.getResourceCacheMissCount());
+        Assert.assertEquals(2, service.getResourceCacheHitCount());
+
+        service.getResource("src/button.html", mockBrowser(false),
+                new OtherTheme());
+        Assert.assertEquals(3, service.getResourceCacheMissCount());
+        Assert.assertEquals(3, service.getResourceCacheHitCount());
+    }
+
+    private static WebBrowser mockBrowser(boolean es6) {
+        WebBrowser browser = Mockito.mock(WebBrowser.class);
+        Mockito.when(browser.isEs6Supported()).thenReturn(es6);
+        return browser;
+    }
+
+    private SpringVaadinServletService getResourceCachingService(
+            int cacheSize) throws ServletException {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE,
+                Boolean.TRUE.toString());
+        properties.setProperty(SpringConstants.STATIC_RESOURCE_CACHE_SIZE,
+                String.valueOf(cacheSize));
+        return getSpringService(properties);
+    }
+
+    private SpringVaadinServletService getSpringService(
+            Properties properties) throws ServletException {
+        return (SpringVaadinServletService) SpringInstantiatorTest
+                .getService(context, properties);
+    }
+
+    private static Properties getAdaptiveHeartbeatProperties(int interval) {
+        Properties properties = new Properties();
+        properties.setProperty(SpringConstants.ADAPTIVE_HEARTBEAT,
+                Boolean.TRUE.toString());
+        properties.setProperty(
+                Constants.SERVLET_PARAMETER_HEARTBEAT_INTERVAL,
+                String.valueOf(interval));
+        properties.setProperty(
+                SpringConstants.ADAPTIVE_HEARTBEAT_MAX_INTERVAL, "1200");
+        return properties;
+    }
 }